@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import io.opentelemetry.futureapi.events.FingerprintStrategy.Fingerprinter;
+import io.opentelemetry.proto.common.v1.AttributeKeyValue;
+import io.opentelemetry.proto.events.v1.Event;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the allocation cost of hashing method arguments. Run with the {@code gc} profiler:
+ * {@code constructArguments} runs the translator's own argument loop, and its {@code
+ * gc.alloc.rate.norm} should only grow by the attribute proto built for each argument, about
+ * 70 B, with the fingerprint strategy adding a fixed amount independent of the argument count.
+ * {@code translateThrowable} shows the same growth on top of the full translation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ArgumentHashingBenchmark {
+
+  @Param({"0", "20", "50"})
+  private int argumentCount;
+
+  @Param({"murmur3_128", "md5"})
+  private String fingerprintStrategy;
+
+  private FingerprintStrategy strategy;
+  private ThrowableTranslator translator;
+  private Exception throwable;
+  private Map<String, Object> parameters;
+
+  @Setup
+  public void setUp() {
+    strategy = "md5".equals(fingerprintStrategy)
+        ? FingerprintStrategy.md5() : FingerprintStrategy.murmur3_128();
+    translator = ThrowableTranslator.newBuilder()
+        .setMaxStackTraceLength(128)
+        .setFingerprintStrategy(strategy)
+        .build();
+    throwable = AbstractConverterEquivalencyTesting.generateDeepException(1, 10);
+    parameters = AbstractConverterEquivalencyTesting.generateParameters(argumentCount);
+  }
+
+  @Benchmark
+  public String constructArguments(Blackhole blackhole) {
+    Fingerprinter hash = strategy.newFingerprinter();
+    List<AttributeKeyValue> attributes = ThrowableTranslator.constructArguments(hash, parameters);
+    blackhole.consume(attributes);
+    return hash.hash();
+  }
+
+  @Benchmark
+  public Event translateThrowable() {
+    return translator.translateThrowable(throwable, parameters);
+  }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import com.amazonaws.xray.entities.Cause;
+import com.google.devtools.clouderrorreporting.v1beta1.ReportedErrorEvent;
+import com.rollbar.notifier.wrapper.ThrowableWrapper;
+import io.opentelemetry.proto.events.v1.Event;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@code convert(Event)} of each vendor converter using the same multi-cause fixture
+ * as the converter equivalency tests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OtelEventConverterBenchmark {
+
+  private final OtelEvent2SentryEventConverter sentryConverter =
+      new OtelEvent2SentryEventConverter();
+  private final OtelEvent2RollbarThrowableWrapperConverter rollbarConverter =
+      new OtelEvent2RollbarThrowableWrapperConverter();
+  private final OtelEvent2AwsXrayCauseConverter xrayConverter =
+      new OtelEvent2AwsXrayCauseConverter();
+  private final OtelEvent2GcpErrorEventConverter gcpConverter =
+      new OtelEvent2GcpErrorEventConverter();
+
+  private Event source;
+
+  @Setup
+  public void setUp() {
+    source = AbstractConverterEquivalencyTesting.translateThrowableToOtelEvent(
+        AbstractConverterEquivalencyTesting.generateMultiCauseException());
+  }
+
+  @Benchmark
+  public io.sentry.event.Event convertToSentry() {
+    return sentryConverter.convert(source);
+  }
+
+  @Benchmark
+  public ThrowableWrapper convertToRollbar() {
+    return rollbarConverter.convert(source);
+  }
+
+  @Benchmark
+  public Cause convertToAwsXray() {
+    return xrayConverter.convert(source);
+  }
+
+  @Benchmark
+  public ReportedErrorEvent convertToGcp() {
+    return gcpConverter.convert(source);
+  }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import io.opentelemetry.proto.events.v1.Event;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link ThrowableTranslator#translateThrowable(Throwable, Map)} across cause-chain
+ * depths, stack depths and argument-map sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ThrowableTranslatorBenchmark {
+
+  @Param({"1", "3", "8"})
+  private int causeDepth;
+
+  @Param({"10", "50", "200"})
+  private int stackDepth;
+
+  @Param({"0", "5", "50"})
+  private int argumentCount;
+
+  private ThrowableTranslator translator;
+  private Exception throwable;
+  private Map<String, Object> parameters;
+
+  @Setup
+  public void setUp() {
+    translator = new ThrowableTranslator(128);
+    throwable = AbstractConverterEquivalencyTesting.generateDeepException(causeDepth, stackDepth);
+    parameters = AbstractConverterEquivalencyTesting.generateParameters(argumentCount);
+  }
+
+  @Benchmark
+  public Event translateThrowable() {
+    return translator.translateThrowable(throwable, parameters);
+  }
+
+}
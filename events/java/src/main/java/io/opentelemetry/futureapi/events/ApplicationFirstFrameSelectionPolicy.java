@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Collection;
+
+/**
+ * Keeps the top frame, then application frames from the top, then any other frames from the
+ * top, recording the selection in stack order.
+ */
+final class ApplicationFirstFrameSelectionPolicy implements FrameSelectionPolicy {
+
+  private final String[] includePrefixes;
+  private final String[] excludePrefixes;
+
+  ApplicationFirstFrameSelectionPolicy(
+      Collection<String> includePrefixes, Collection<String> excludePrefixes) {
+    this.includePrefixes = checkNotNull(includePrefixes, "includePrefixes is required")
+        .toArray(new String[0]);
+    this.excludePrefixes = checkNotNull(excludePrefixes, "excludePrefixes is required")
+        .toArray(new String[0]);
+  }
+
+  @Override
+  public int[] select(StackTraceElement[] frames, int maxFrames) {
+    if (frames.length <= maxFrames) {
+      return HeadFrameSelectionPolicy.range(frames.length);
+    }
+    boolean[] keep = new boolean[frames.length];
+    int count = 0;
+    if (maxFrames > 0) {
+      keep[0] = true;
+      count++;
+    }
+    for (int i = 1; i < frames.length && count < maxFrames; i++) {
+      if (isApplicationFrame(frames[i])) {
+        keep[i] = true;
+        count++;
+      }
+    }
+    for (int i = 1; i < frames.length && count < maxFrames; i++) {
+      if (!keep[i]) {
+        keep[i] = true;
+        count++;
+      }
+    }
+    int[] selected = new int[count];
+    for (int i = 0, j = 0; j < count; i++) {
+      if (keep[i]) {
+        selected[j++] = i;
+      }
+    }
+    return selected;
+  }
+
+  private boolean isApplicationFrame(StackTraceElement frame) {
+    String className = frame.getClassName();
+    for (String prefix : excludePrefixes) {
+      if (className.startsWith(prefix)) {
+        return false;
+      }
+    }
+    for (String prefix : includePrefixes) {
+      if (className.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
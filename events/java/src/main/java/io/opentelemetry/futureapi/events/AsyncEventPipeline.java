@@ -0,0 +1,422 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Moves translation and vendor conversion of errors off the threads that threw them. Producers
+ * take a {@link ThrowableCapture} of the throwable and hand it with a copy of its arguments to
+ * a bounded queue; a single worker drains it in batches, translates each entry, converts it and
+ * passes the converted batch to the sink. A batch is flushed once it reaches the maximum batch
+ * size or the flush interval has passed since its first entry was taken.
+ *
+ * <p>The queue is an {@link ArrayBlockingQueue}, a preallocated ring buffer that many producers
+ * may offer to, rather than a lock-free MPSC ring buffer. Its single lock costs a producer far
+ * less than the stack capture that precedes every submission, and it gives the blocking put and
+ * timed poll that {@link OverflowPolicy#BLOCK} and the flush interval need without spinning.
+ *
+ * @param <T> the vendor type produced by the converter
+ */
+public final class AsyncEventPipeline<T> implements AutoCloseable {
+
+  private static final Logger LOGGER = Logger.getLogger(AsyncEventPipeline.class.getName());
+  /** Queued by {@link #close} to wake the worker if it is waiting on an empty queue. */
+  private static final Submission CLOSE_SIGNAL = new Submission(null, Collections.emptyMap());
+
+  /**
+   * What {@link #submit} does when the queue is full.
+   */
+  public enum OverflowPolicy {
+    /** Discards the new entry and counts it as dropped. */
+    DROP,
+    /** Waits until the worker has made room. */
+    BLOCK
+  }
+
+  private final ThrowableTranslator translator;
+  private final Function<DecodedEvent, T> converter;
+  private final Consumer<List<T>> sink;
+  private final BlockingQueue<Submission> queue;
+  private final int maxBatchSize;
+  private final long flushIntervalNanos;
+  private final OverflowPolicy overflowPolicy;
+  private final Thread worker;
+  private volatile boolean closed;
+
+  private final LongAdder submittedCount = new LongAdder();
+  private final LongAdder droppedCount = new LongAdder();
+  private final LongAdder failedCount = new LongAdder();
+  private final LongAdder unconvertedCount = new LongAdder();
+  private final LongAdder batchCount = new LongAdder();
+  private final LongAdder batchedCount = new LongAdder();
+  private final AtomicLong largestBatchSize = new AtomicLong();
+
+  private AsyncEventPipeline(Builder<T> builder) {
+    this.translator = builder.translator;
+    this.converter = builder.converter;
+    this.sink = builder.sink;
+    this.queue = new ArrayBlockingQueue<>(builder.queueCapacity);
+    this.maxBatchSize = builder.maxBatchSize;
+    this.flushIntervalNanos = builder.flushInterval.toNanos();
+    this.overflowPolicy = builder.overflowPolicy;
+    this.worker = builder.threadFactory.newThread(this::run);
+  }
+
+  /**
+   * Creates a builder for a pipeline translating with the translator, converting each event with
+   * the converter and delivering converted batches to the sink. Errors sampled out by the
+   * translator and events the converter returns {@code null} for are left out of the batch; the
+   * latter are counted by {@link #getUnconvertedCount}.
+   */
+  public static <T> Builder<T> newBuilder(ThrowableTranslator translator,
+      Function<DecodedEvent, T> converter, Consumer<List<T>> sink) {
+    return new Builder<>(translator, converter, sink);
+  }
+
+  /**
+   * Captures the throwable and queues it for translation. The arguments are copied. Returns
+   * {@code false} if the entry was dropped because the queue is full under {@link
+   * OverflowPolicy#DROP}, the thread was interrupted while waiting under {@link
+   * OverflowPolicy#BLOCK}, or the pipeline is closed.
+   */
+  public boolean submit(Throwable source, Map<String, Object> parameters) {
+    checkNotNull(source, "source is required");
+    if (closed) {
+      droppedCount.increment();
+      return false;
+    }
+    Submission submission =
+        new Submission(ThrowableCapture.of(source), copyParameters(parameters));
+    boolean accepted;
+    if (overflowPolicy == OverflowPolicy.BLOCK) {
+      try {
+        queue.put(submission);
+        accepted = true;
+      } catch (InterruptedException cause) {
+        Thread.currentThread().interrupt();
+        accepted = false;
+      }
+    } else {
+      accepted = queue.offer(submission);
+    }
+    if (accepted && closed && queue.remove(submission)) {
+      // The worker may have seen the queue empty after close and exited before the entry was
+      // queued; take it back unless the worker already has it.
+      accepted = false;
+    }
+    if (accepted) {
+      submittedCount.increment();
+    } else {
+      droppedCount.increment();
+    }
+    return accepted;
+  }
+
+  /**
+   * Stops accepting entries, processes those already queued and waits for the worker to finish.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    queue.offer(CLOSE_SIGNAL);
+    try {
+      worker.join();
+    } catch (InterruptedException cause) {
+      Thread.currentThread().interrupt();
+    }
+    queue.remove(CLOSE_SIGNAL);
+  }
+
+  /**
+   * Returns the number of entries waiting for the worker.
+   */
+  public int getQueueDepth() {
+    return queue.size();
+  }
+
+  /**
+   * Returns how many entries were accepted by {@link #submit}.
+   */
+  public long getSubmittedCount() {
+    return submittedCount.sum();
+  }
+
+  /**
+   * Returns how many entries were rejected by {@link #submit}.
+   */
+  public long getDroppedCount() {
+    return droppedCount.sum();
+  }
+
+  /**
+   * Returns how many accepted entries could not be translated or converted, or were in a batch
+   * the sink failed on.
+   */
+  public long getFailedCount() {
+    return failedCount.sum();
+  }
+
+  /**
+   * Returns how many translated entries the converter returned {@code null} for, such as the
+   * compact repeats produced with a {@link SeenIssuesRegistry}. Entries sampled out by the
+   * translator are not counted.
+   */
+  public long getUnconvertedCount() {
+    return unconvertedCount.sum();
+  }
+
+  /**
+   * Returns how many batches were taken from the queue.
+   */
+  public long getBatchCount() {
+    return batchCount.sum();
+  }
+
+  /**
+   * Returns how many entries were taken from the queue in all batches together.
+   */
+  public long getBatchedCount() {
+    return batchedCount.sum();
+  }
+
+  /**
+   * Returns the size of the largest batch taken from the queue.
+   */
+  public long getLargestBatchSize() {
+    return largestBatchSize.get();
+  }
+
+  private void start() {
+    worker.start();
+  }
+
+  /**
+   * Processes batches until the pipeline is closed and the queue empty. If the worker stops for
+   * any other reason the pipeline is closed and the entries left are counted as dropped, so that
+   * producers are turned away instead of waiting for a worker that is gone.
+   */
+  private void run() {
+    List<Submission> batch = new ArrayList<>(maxBatchSize);
+    try {
+      while (true) {
+        try {
+          fillBatch(batch);
+        } catch (InterruptedException cause) {
+          closed = true;
+          queue.drainTo(batch, maxBatchSize - batch.size());
+          batch.remove(CLOSE_SIGNAL);
+        }
+        if (!batch.isEmpty()) {
+          processBatch(batch);
+          batch.clear();
+        } else if (closed && queue.isEmpty()) {
+          return;
+        }
+      }
+    } catch (Throwable cause) {
+      LOGGER.log(Level.SEVERE, "event pipeline worker stopped", cause);
+      throw cause;
+    } finally {
+      closed = true;
+      queue.drainTo(batch);
+      batch.remove(CLOSE_SIGNAL);
+      droppedCount.add(batch.size());
+    }
+  }
+
+  private void fillBatch(List<Submission> batch) throws InterruptedException {
+    Submission first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+    if (first == null || first == CLOSE_SIGNAL) {
+      return;
+    }
+    batch.add(first);
+    long deadline = System.nanoTime() + flushIntervalNanos;
+    while (batch.size() < maxBatchSize) {
+      if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+        if (batch.remove(CLOSE_SIGNAL)) {
+          return;
+        }
+        continue;
+      }
+      long remaining = deadline - System.nanoTime();
+      if (closed || remaining <= 0L) {
+        return;
+      }
+      Submission next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+      if (next == null || next == CLOSE_SIGNAL) {
+        return;
+      }
+      batch.add(next);
+    }
+  }
+
+  private void processBatch(List<Submission> batch) {
+    batchCount.increment();
+    batchedCount.add(batch.size());
+    largestBatchSize.accumulateAndGet(batch.size(), Math::max);
+    List<T> converted = new ArrayList<>(batch.size());
+    for (Submission submission : batch) {
+      try {
+        DecodedEvent event = translator.translate(submission.capture, submission.parameters);
+        if (event == null) {
+          continue;
+        }
+        T target = converter.apply(event);
+        if (target != null) {
+          converted.add(target);
+        } else {
+          unconvertedCount.increment();
+        }
+      } catch (Throwable cause) {
+        failedCount.increment();
+        LOGGER.log(Level.WARNING, cause.getMessage(), cause);
+      }
+    }
+    if (converted.isEmpty()) {
+      return;
+    }
+    try {
+      sink.accept(converted);
+    } catch (Throwable cause) {
+      failedCount.add(converted.size());
+      LOGGER.log(Level.WARNING, cause.getMessage(), cause);
+    }
+  }
+
+  private static Map<String, Object> copyParameters(Map<String, Object> parameters) {
+    if (parameters == null || parameters.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    return new HashMap<>(parameters);
+  }
+
+  private static final class Submission {
+
+    private final ThrowableCapture capture;
+    private final Map<String, Object> parameters;
+
+    private Submission(ThrowableCapture capture, Map<String, Object> parameters) {
+      this.capture = capture;
+      this.parameters = parameters;
+    }
+  }
+
+  /**
+   * Builder for {@link AsyncEventPipeline}.
+   *
+   * @param <T> the vendor type produced by the converter
+   */
+  public static final class Builder<T> {
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 8192;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 512;
+    private static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(1L);
+
+    private final ThrowableTranslator translator;
+    private final Function<DecodedEvent, T> converter;
+    private final Consumer<List<T>> sink;
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private Duration flushInterval = DEFAULT_FLUSH_INTERVAL;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+    private ThreadFactory threadFactory = runnable -> {
+      Thread thread = new Thread(runnable, "otel-event-pipeline");
+      thread.setDaemon(true);
+      return thread;
+    };
+
+    private Builder(ThrowableTranslator translator,
+        Function<DecodedEvent, T> converter, Consumer<List<T>> sink) {
+      this.translator = checkNotNull(translator, "translator is required");
+      this.converter = checkNotNull(converter, "converter is required");
+      this.sink = checkNotNull(sink, "sink is required");
+    }
+
+    /**
+     * Sets the maximum number of entries waiting for the worker.
+     */
+    public Builder<T> setQueueCapacity(int queueCapacity) {
+      checkArgument(queueCapacity > 0, "queueCapacity must be positive");
+      this.queueCapacity = queueCapacity;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of entries passed to the sink at once.
+     */
+    public Builder<T> setMaxBatchSize(int maxBatchSize) {
+      checkArgument(maxBatchSize > 0, "maxBatchSize must be positive");
+      this.maxBatchSize = maxBatchSize;
+      return this;
+    }
+
+    /**
+     * Sets how long the worker waits for a batch to fill before flushing it.
+     */
+    public Builder<T> setFlushInterval(Duration flushInterval) {
+      checkNotNull(flushInterval, "flushInterval is required");
+      checkArgument(!flushInterval.isNegative() && !flushInterval.isZero(),
+          "flushInterval must be positive");
+      this.flushInterval = flushInterval;
+      return this;
+    }
+
+    /**
+     * Sets what happens when the queue is full, {@link OverflowPolicy#DROP} by default.
+     */
+    public Builder<T> setOverflowPolicy(OverflowPolicy overflowPolicy) {
+      this.overflowPolicy = checkNotNull(overflowPolicy, "overflowPolicy is required");
+      return this;
+    }
+
+    /**
+     * Sets the factory of the worker thread. The default creates a daemon thread.
+     */
+    public Builder<T> setThreadFactory(ThreadFactory threadFactory) {
+      this.threadFactory = checkNotNull(threadFactory, "threadFactory is required");
+      return this;
+    }
+
+    /**
+     * Creates the pipeline and starts its worker.
+     */
+    public AsyncEventPipeline<T> build() {
+      AsyncEventPipeline<T> pipeline = new AsyncEventPipeline<>(this);
+      pipeline.start();
+      return pipeline;
+    }
+  }
+}
@@ -18,11 +18,15 @@ package io.opentelemetry.futureapi.events;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
 
+import com.google.protobuf.Any;
+import com.google.protobuf.GeneratedMessageV3;
 import io.opentelemetry.proto.common.v1.AttributeKeyValue;
+import io.opentelemetry.proto.common.v1.AttributeKeyValue.ValueType;
 import io.opentelemetry.proto.events.v1.StackTrace.StackFrame;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 /**
  * Provides utility methods for working with OpenTelemetry attributes.
@@ -57,6 +61,16 @@ public final class AttributeUtils {
     return map;
   }
 
+  /**
+   * Builds an attribute of type {@code ANY} holding the serialized message.
+   */
+  public static AttributeKeyValue buildAnyAttribute(String key, GeneratedMessageV3 value) {
+    String typeUrl = "type.googleapis.com/" + value.getDescriptorForType().getFullName();
+    Any any = Any.newBuilder().setTypeUrl(typeUrl).setValue(value.toByteString()).build();
+    return AttributeKeyValue.newBuilder()
+        .setKey(key).setAnyValue(any).setType(ValueType.ANY).build();
+  }
+
   public static StackFrame convertStackTraceElement2StackFrame(StackTraceElement source) {
     if (source == null) {
       return null;
@@ -70,6 +84,17 @@ public final class AttributeUtils {
     }
   }
 
+  /**
+   * Converts the element, taking a shared instance from the pool when one is given.
+   */
+  public static StackFrame convertStackTraceElement2StackFrame(
+      StackTraceElement source, @Nullable StackFrameInternPool pool) {
+    if (pool == null || source == null) {
+      return convertStackTraceElement2StackFrame(source);
+    }
+    return pool.toStackFrame(source);
+  }
+
   public static StackTraceElement convertStackFrame2StackTraceElement(StackFrame source) {
     if (source == null) {
       return null;
@@ -83,6 +108,17 @@ public final class AttributeUtils {
     }
   }
 
+  /**
+   * Converts the frame, taking a shared instance from the pool when one is given.
+   */
+  public static StackTraceElement convertStackFrame2StackTraceElement(
+      StackFrame source, @Nullable StackFrameInternPool pool) {
+    if (pool == null || source == null) {
+      return convertStackFrame2StackTraceElement(source);
+    }
+    return pool.toStackTraceElement(source);
+  }
+
   private AttributeUtils() {}
 
 }
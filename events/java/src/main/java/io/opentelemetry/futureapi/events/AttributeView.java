@@ -0,0 +1,163 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.opentelemetry.futureapi.events.AttributeUtils.convertAttributeListToMap;
+
+import com.google.protobuf.Any;
+import io.opentelemetry.proto.common.v1.AttributeKeyValue;
+import io.opentelemetry.proto.common.v1.AttributeKeyValue.ValueType;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Read-only lookup of attributes by key over an {@code AttributeKeyValue} list, reading values
+ * straight from the protobuf messages instead of boxing them into a map. Short lists are scanned;
+ * longer ones get an open-addressing index built once. When a key occurs more than once the last
+ * occurrence wins, as with {@link AttributeUtils#convertAttributeListToMap}. Typed getters return
+ * the default when the key is missing or holds a value of another type. Instances are immutable.
+ */
+public final class AttributeView {
+
+  /** Lists up to this size are scanned rather than indexed. */
+  static final int LINEAR_SCAN_THRESHOLD = 8;
+
+  private static final AttributeView EMPTY =
+      new AttributeView(Collections.<AttributeKeyValue>emptyList());
+
+  private final List<AttributeKeyValue> attributes;
+  /** Slots hold an attribute position plus one, or zero when free; {@code null} when scanning. */
+  @Nullable
+  private final int[] index;
+
+  private AttributeView(List<AttributeKeyValue> attributes) {
+    this.attributes = attributes;
+    this.index = attributes.size() > LINEAR_SCAN_THRESHOLD ? buildIndex(attributes) : null;
+  }
+
+  public static AttributeView of(List<AttributeKeyValue> attributes) {
+    checkNotNull(attributes, "attributes is required");
+    return attributes.isEmpty() ? EMPTY : new AttributeView(attributes);
+  }
+
+  public int size() {
+    return attributes.size();
+  }
+
+  public boolean contains(String key) {
+    return indexOf(key) >= 0;
+  }
+
+  /**
+   * Returns the type of the attribute, or {@code null} if there is none with the key.
+   */
+  @Nullable
+  public ValueType getType(String key) {
+    int position = indexOf(key);
+    return position < 0 ? null : attributes.get(position).getType();
+  }
+
+  @Nullable
+  public String getString(String key) {
+    AttributeKeyValue attribute = find(key, ValueType.STRING);
+    return attribute == null ? null : attribute.getStringValue();
+  }
+
+  public long getLong(String key, long defaultValue) {
+    AttributeKeyValue attribute = find(key, ValueType.INT);
+    return attribute == null ? defaultValue : attribute.getIntValue();
+  }
+
+  public double getDouble(String key, double defaultValue) {
+    AttributeKeyValue attribute = find(key, ValueType.DOUBLE);
+    return attribute == null ? defaultValue : attribute.getDoubleValue();
+  }
+
+  public boolean getBool(String key, boolean defaultValue) {
+    AttributeKeyValue attribute = find(key, ValueType.BOOL);
+    return attribute == null ? defaultValue : attribute.getBoolValue();
+  }
+
+  @Nullable
+  public Any getAny(String key) {
+    AttributeKeyValue attribute = find(key, ValueType.ANY);
+    return attribute == null ? null : attribute.getAnyValue();
+  }
+
+  /**
+   * Returns the attributes as a map, boxing every value. Intended for callers that need the
+   * whole set at once.
+   */
+  public Map<String, Object> toMap() {
+    return convertAttributeListToMap(attributes);
+  }
+
+  /**
+   * Returns the position of the attribute with the key in the list, or {@code -1}.
+   */
+  int indexOf(String key) {
+    checkNotNull(key, "key is required");
+    if (index == null) {
+      for (int i = attributes.size() - 1; i >= 0; i--) {
+        if (key.equals(attributes.get(i).getKey())) {
+          return i;
+        }
+      }
+      return -1;
+    }
+    int mask = index.length - 1;
+    for (int slot = mix(key.hashCode()) & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+      int position = index[slot] - 1;
+      if (key.equals(attributes.get(position).getKey())) {
+        return position;
+      }
+    }
+    return -1;
+  }
+
+  @Nullable
+  private AttributeKeyValue find(String key, ValueType type) {
+    int position = indexOf(key);
+    if (position < 0) {
+      return null;
+    }
+    AttributeKeyValue attribute = attributes.get(position);
+    return attribute.getType() == type ? attribute : null;
+  }
+
+  private static int[] buildIndex(List<AttributeKeyValue> attributes) {
+    int[] index = new int[Integer.highestOneBit(attributes.size() * 2 - 1) << 1];
+    int mask = index.length - 1;
+    for (int position = 0; position < attributes.size(); position++) {
+      String key = attributes.get(position).getKey();
+      int slot = mix(key.hashCode()) & mask;
+      while (index[slot] != 0 && !key.equals(attributes.get(index[slot] - 1).getKey())) {
+        slot = (slot + 1) & mask;
+      }
+      index[slot] = position + 1;
+    }
+    return index;
+  }
+
+  private static int mix(int hash) {
+    int mixed = hash * 0x9E3779B9;
+    return mixed ^ (mixed >>> 16);
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import java.util.Arrays;
+
+/**
+ * Captures the current thread's stack up to a limit, counting the frames beyond it. This is the
+ * Java 8 implementation, which has to materialize the whole stack through {@link
+ * Throwable#getStackTrace()}; the multi-release jar replaces it on Java 9 and later with one
+ * based on {@code StackWalker}.
+ */
+final class CallSiteStackCapture {
+
+  private final StackTraceElement[] frames;
+  private final int droppedFramesCount;
+
+  private CallSiteStackCapture(StackTraceElement[] frames, int droppedFramesCount) {
+    this.frames = frames;
+    this.droppedFramesCount = droppedFramesCount;
+  }
+
+  /**
+   * Captures the stack of the calling thread.
+   *
+   * @param skipFrames the number of frames above the caller of this method to leave out
+   * @param maxFrames the maximum number of frames kept after skipping
+   */
+  static CallSiteStackCapture capture(int skipFrames, int maxFrames) {
+    StackTraceElement[] stack = new Throwable().getStackTrace();
+    int from = Math.min(skipFrames + 1, stack.length);
+    int available = stack.length - from;
+    int kept = Math.min(available, maxFrames);
+    return new CallSiteStackCapture(
+        Arrays.copyOfRange(stack, from, from + kept), available - kept);
+  }
+
+  StackTraceElement[] getFrames() {
+    return frames;
+  }
+
+  int getDroppedFramesCount() {
+    return droppedFramesCount;
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Drops immediate repetitions of a frame or of a cycle of up to four frames, then lets the
+ * delegate select among the frames left.
+ */
+final class CollapseRecursionFrameSelectionPolicy implements FrameSelectionPolicy {
+
+  private static final int MAX_CYCLE_LENGTH = 4;
+
+  private final FrameSelectionPolicy delegate;
+
+  CollapseRecursionFrameSelectionPolicy(FrameSelectionPolicy delegate) {
+    this.delegate = checkNotNull(delegate, "delegate is required");
+  }
+
+  @Override
+  public int[] select(StackTraceElement[] frames, int maxFrames) {
+    int[] remaining = new int[frames.length];
+    int count = 0;
+    int i = 0;
+    while (i < frames.length) {
+      int cycle = findRepeatedCycle(frames, i);
+      if (cycle > 0) {
+        i += cycle;
+      } else {
+        remaining[count++] = i++;
+      }
+    }
+    if (count == frames.length) {
+      return delegate.select(frames, maxFrames);
+    }
+    StackTraceElement[] collapsed = new StackTraceElement[count];
+    for (int j = 0; j < count; j++) {
+      collapsed[j] = frames[remaining[j]];
+    }
+    int[] selected = delegate.select(collapsed, maxFrames);
+    for (int j = 0; j < selected.length; j++) {
+      selected[j] = remaining[selected[j]];
+    }
+    return selected;
+  }
+
+  /**
+   * Returns the length of the shortest cycle that starts at the index and repeats the frames
+   * just before it, or zero if there is none.
+   */
+  private static int findRepeatedCycle(StackTraceElement[] frames, int index) {
+    for (int length = 1; length <= MAX_CYCLE_LENGTH; length++) {
+      if (index < length || index + length > frames.length) {
+        return 0;
+      }
+      if (regionsEqual(frames, index - length, index, length)) {
+        return length;
+      }
+    }
+    return 0;
+  }
+
+  private static boolean regionsEqual(
+      StackTraceElement[] frames, int first, int second, int length) {
+    for (int i = 0; i < length; i++) {
+      if (!frames[first + i].equals(frames[second + i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.opentelemetry.futureapi.events.AttributeUtils.buildAnyAttribute;
+import static io.opentelemetry.futureapi.events.EventConstants.ATTR_ERROR_OBJECT;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.opentelemetry.proto.events.v1.ErrorData;
+import io.opentelemetry.proto.events.v1.Event;
+import java.util.Collections;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+/**
+ * An {@link Event} together with its decoded attributes and {@code error.object}. Decoding
+ * happens on first access and is shared by every converter the event is passed to, so fanning
+ * one event out to several exporters parses it only once.
+ *
+ * <p>Events produced by {@link ThrowableTranslator#translate} start out the other way around:
+ * they hold the live {@link ErrorData} and only serialize it into the {@code error.object}
+ * {@code Any} when {@link #getEvent()} is called, typically when the event leaves the process.
+ * Converters never need the serialized form. Instances are thread-safe.
+ */
+public final class DecodedEvent {
+
+  private static final Logger LOGGER = Logger.getLogger(DecodedEvent.class.getName());
+
+  private final Event header;
+  private volatile Event event;
+  private volatile AttributeView attributeView;
+  private volatile Map<String, Object> attributes;
+  private volatile boolean errorDataDecoded;
+  @Nullable
+  private ErrorData errorData;
+
+  private DecodedEvent(Event event) {
+    this.header = event;
+    this.event = event;
+  }
+
+  private DecodedEvent(Event header, ErrorData errorData) {
+    this.header = header;
+    this.errorData = errorData;
+    this.errorDataDecoded = true;
+  }
+
+  public static DecodedEvent of(Event event) {
+    return new DecodedEvent(checkNotNull(event, "event is required"));
+  }
+
+  /**
+   * Creates an event whose {@code error.object} attribute is the given error data. The header
+   * holds every other field and attribute; the {@code error.object} attribute is appended to it
+   * when the event is first serialized.
+   */
+  static DecodedEvent ofErrorData(Event header, ErrorData errorData) {
+    return new DecodedEvent(checkNotNull(header, "header is required"),
+        checkNotNull(errorData, "errorData is required"));
+  }
+
+  /**
+   * Returns the event, building the {@code error.object} attribute first if the event was
+   * created from live error data.
+   */
+  public Event getEvent() {
+    Event result = event;
+    if (result == null) {
+      synchronized (this) {
+        result = event;
+        if (result == null) {
+          result = header.toBuilder()
+              .addAttributes(buildAnyAttribute(ATTR_ERROR_OBJECT, errorData))
+              .build();
+          event = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  public String getDescription() {
+    return header.getDescription();
+  }
+
+  public long getTimeUnixnano() {
+    return header.getTimeUnixnano();
+  }
+
+  boolean isSerialized() {
+    return event != null;
+  }
+
+  /**
+   * Returns a view of the event's attributes reading typed values without boxing. This
+   * serializes events created from live error data.
+   */
+  public AttributeView getAttributeView() {
+    AttributeView result = attributeView;
+    if (result == null) {
+      result = AttributeView.of(getEvent().getAttributesList());
+      attributeView = result;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the event's attributes by key, converted once and unmodifiable. This serializes
+   * events created from live error data. Prefer {@link #getAttributeView()} for single lookups.
+   */
+  public Map<String, Object> getAttributes() {
+    Map<String, Object> result = attributes;
+    if (result == null) {
+      result = Collections.unmodifiableMap(getAttributeView().toMap());
+      attributes = result;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the {@code error.object} attribute unpacked, or {@code null} if the event has none or
+   * it cannot be parsed. The payload is parsed at most once.
+   */
+  @Nullable
+  public ErrorData getErrorData() {
+    if (!errorDataDecoded) {
+      synchronized (this) {
+        if (!errorDataDecoded) {
+          errorData = decodeErrorData();
+          errorDataDecoded = true;
+        }
+      }
+    }
+    return errorData;
+  }
+
+  @Nullable
+  private ErrorData decodeErrorData() {
+    Any value = getAttributeView().getAny(ATTR_ERROR_OBJECT);
+    if (value == null) {
+      return null;
+    }
+    try {
+      return value.unpack(ErrorData.class);
+    } catch (InvalidProtocolBufferException cause) {
+      LOGGER.log(Level.WARNING, cause.getMessage(), cause);
+      return null;
+    }
+  }
+}
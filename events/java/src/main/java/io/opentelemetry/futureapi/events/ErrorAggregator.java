@@ -0,0 +1,228 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.opentelemetry.futureapi.events.AttributeUtils.buildAnyAttribute;
+import static io.opentelemetry.futureapi.events.EventConstants.ATTR_ERROR_AGGREGATE;
+
+import com.google.common.base.Ticker;
+import io.opentelemetry.proto.common.v1.AttributeKeyValue;
+import io.opentelemetry.proto.events.v1.ErrorAggregate;
+import io.opentelemetry.proto.events.v1.ErrorAggregate.ArgumentSet;
+import io.opentelemetry.proto.events.v1.ErrorData;
+import io.opentelemetry.proto.events.v1.Event;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collapses occurrences of the same error, identified by {@code hash_id}, into one summary event
+ * per aggregation window. The summary is the first occurrence's event with an {@code
+ * error.aggregate} attribute added, holding an {@link ErrorAggregate} with the number of
+ * occurrences, the first and last occurrence times and a bounded reservoir sample of their
+ * argument sets. A window starts with the first occurrence of an error and closes once the
+ * window duration has passed. At most a bounded number of windows are open at once; while the
+ * limit is reached, occurrences of other errors are left to the caller, so a storm of distinct
+ * errors cannot grow the aggregator without bound. Instances are thread-safe.
+ */
+public final class ErrorAggregator {
+
+  private static final int DEFAULT_MAX_GROUPS = 10000;
+
+  private final ConcurrentMap<String, Group> groups = new ConcurrentHashMap<>();
+  private final AtomicInteger openGroups = new AtomicInteger();
+  private final LongAdder overflowCount = new LongAdder();
+  private final long windowNanos;
+  private final int reservoirSize;
+  private final int maxGroups;
+  private final Ticker ticker;
+
+  /**
+   * Creates an aggregator.
+   *
+   * @param window how long occurrences of an error are collected before its summary is emitted
+   * @param reservoirSize the maximum number of argument sets kept per summary
+   */
+  public ErrorAggregator(Duration window, int reservoirSize) {
+    this(window, reservoirSize, DEFAULT_MAX_GROUPS);
+  }
+
+  /**
+   * Creates an aggregator.
+   *
+   * @param window how long occurrences of an error are collected before its summary is emitted
+   * @param reservoirSize the maximum number of argument sets kept per summary
+   * @param maxGroups the maximum number of errors with an open window
+   */
+  public ErrorAggregator(Duration window, int reservoirSize, int maxGroups) {
+    this(window, reservoirSize, maxGroups, Ticker.systemTicker());
+  }
+
+  ErrorAggregator(Duration window, int reservoirSize, Ticker ticker) {
+    this(window, reservoirSize, DEFAULT_MAX_GROUPS, ticker);
+  }
+
+  ErrorAggregator(Duration window, int reservoirSize, int maxGroups, Ticker ticker) {
+    checkNotNull(window, "window is required");
+    checkArgument(!window.isNegative() && !window.isZero(), "window must be positive");
+    checkArgument(reservoirSize >= 0, "reservoirSize must not be negative");
+    checkArgument(maxGroups > 0, "maxGroups must be positive");
+    this.windowNanos = window.toNanos();
+    this.reservoirSize = reservoirSize;
+    this.maxGroups = maxGroups;
+    this.ticker = checkNotNull(ticker, "ticker is required");
+  }
+
+  /**
+   * Adds an occurrence. Returns {@code false}, leaving the event to the caller, if it carries no
+   * error data with a {@code hash_id}, or if it would open a window while the maximum number of
+   * windows is open.
+   */
+  public boolean add(DecodedEvent event) {
+    checkNotNull(event, "event is required");
+    ErrorData errorData = event.getErrorData();
+    if (errorData == null || errorData.getHashId().isEmpty()) {
+      return false;
+    }
+    while (true) {
+      Group group = groups.get(errorData.getHashId());
+      if (group == null) {
+        if (openGroups.incrementAndGet() > maxGroups) {
+          openGroups.decrementAndGet();
+          overflowCount.increment();
+          return false;
+        }
+        Group created = new Group(event, ticker.read() + windowNanos);
+        group = groups.putIfAbsent(errorData.getHashId(), created);
+        if (group == null) {
+          group = created;
+        } else {
+          openGroups.decrementAndGet();
+        }
+      }
+      if (group.add(event, errorData, reservoirSize)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Removes and returns the summaries of all windows that have closed.
+   */
+  public List<Event> drainExpired() {
+    return drain(false);
+  }
+
+  /**
+   * Removes and returns the summaries of all windows, closed or not.
+   */
+  public List<Event> drainAll() {
+    return drain(true);
+  }
+
+  /**
+   * Returns the number of errors with an open window.
+   */
+  public int size() {
+    return groups.size();
+  }
+
+  /**
+   * Returns how many occurrences were left to the caller because the maximum number of windows
+   * was open.
+   */
+  public long getOverflowCount() {
+    return overflowCount.sum();
+  }
+
+  private List<Event> drain(boolean all) {
+    long now = ticker.read();
+    List<Event> summaries = new ArrayList<>();
+    for (Map.Entry<String, Group> entry : groups.entrySet()) {
+      Group group = entry.getValue();
+      if ((all || now - group.deadlineNanos >= 0L) && groups.remove(entry.getKey(), group)) {
+        openGroups.decrementAndGet();
+        summaries.add(group.close());
+      }
+    }
+    return summaries;
+  }
+
+  /**
+   * Occurrences of one error within a window. Updates are guarded by the group's lock; once
+   * closed a group rejects further occurrences so they start a new window instead.
+   */
+  private static final class Group {
+
+    private final DecodedEvent first;
+    private final long deadlineNanos;
+    private final List<List<AttributeKeyValue>> reservoir = new ArrayList<>();
+    private long count;
+    private long occurrences;
+    private long firstTimeUnixnano;
+    private long lastTimeUnixnano;
+    private boolean closed;
+
+    Group(DecodedEvent first, long deadlineNanos) {
+      this.first = first;
+      this.deadlineNanos = deadlineNanos;
+      this.firstTimeUnixnano = first.getTimeUnixnano();
+      this.lastTimeUnixnano = first.getTimeUnixnano();
+    }
+
+    synchronized boolean add(DecodedEvent event, ErrorData errorData, int reservoirSize) {
+      if (closed) {
+        return false;
+      }
+      count += 1L + errorData.getSampledOutCount();
+      firstTimeUnixnano = Math.min(firstTimeUnixnano, event.getTimeUnixnano());
+      lastTimeUnixnano = Math.max(lastTimeUnixnano, event.getTimeUnixnano());
+      occurrences++;
+      if (reservoir.size() < reservoirSize) {
+        reservoir.add(errorData.getArgumentsList());
+      } else if (reservoirSize > 0) {
+        long slot = ThreadLocalRandom.current().nextLong(occurrences);
+        if (slot < reservoirSize) {
+          reservoir.set((int) slot, errorData.getArgumentsList());
+        }
+      }
+      return true;
+    }
+
+    synchronized Event close() {
+      closed = true;
+      ErrorAggregate.Builder aggregate = ErrorAggregate.newBuilder()
+          .setCount(count)
+          .setFirstTimeUnixnano(firstTimeUnixnano)
+          .setLastTimeUnixnano(lastTimeUnixnano);
+      for (List<AttributeKeyValue> arguments : reservoir) {
+        aggregate.addArgumentSamples(ArgumentSet.newBuilder().addAllArguments(arguments));
+      }
+      return first.getEvent().toBuilder()
+          .addAttributes(buildAnyAttribute(ATTR_ERROR_AGGREGATE, aggregate.build()))
+          .build();
+    }
+  }
+}
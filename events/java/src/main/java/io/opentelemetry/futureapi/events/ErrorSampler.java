@@ -0,0 +1,264 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+
+/**
+ * Limits how many occurrences of each issue are translated, keyed by {@code issue_hash_id}.
+ * The first occurrences of an issue are always kept; after that each issue draws from its own
+ * token bucket and, if configured, from a budget shared by all issues. Occurrences sampled out
+ * are counted per issue and reported as {@code sampled_out_count} on the next occurrence kept,
+ * so totals stay accurate. Counts still pending when an issue is evicted are lost.
+ *
+ * <p>Deciding is lock-free once an issue is known: each bucket is a single {@link AtomicLong}
+ * updated by compare-and-set, following the generic cell rate algorithm.
+ */
+public final class ErrorSampler {
+
+  /**
+   * Returned by {@link #sample} for an occurrence that should not be translated.
+   */
+  public static final long SAMPLED_OUT = -1L;
+
+  private final Cache<String, IssueState> issues;
+  private final Ticker ticker;
+  private final long alwaysKeepFirst;
+  private final long issueIntervalNanos;
+  private final long issueToleranceNanos;
+  @Nullable
+  private final AtomicLong globalBucket;
+  private final long globalIntervalNanos;
+  private final long globalToleranceNanos;
+  private final LongAdder keptCount = new LongAdder();
+  private final LongAdder sampledOutCount = new LongAdder();
+
+  private ErrorSampler(Builder builder) {
+    this.ticker = builder.ticker;
+    this.alwaysKeepFirst = builder.alwaysKeepFirst;
+    this.issueIntervalNanos = intervalNanos(builder.issueRatePerSecond);
+    this.issueToleranceNanos = issueIntervalNanos * (builder.issueBurst - 1);
+    if (builder.globalRatePerSecond > 0.0d) {
+      this.globalIntervalNanos = intervalNanos(builder.globalRatePerSecond);
+      this.globalToleranceNanos = globalIntervalNanos * (builder.globalBurst - 1);
+      this.globalBucket = new AtomicLong(ticker.read());
+    } else {
+      this.globalIntervalNanos = 0L;
+      this.globalToleranceNanos = 0L;
+      this.globalBucket = null;
+    }
+    this.issues = CacheBuilder.newBuilder()
+        .maximumSize(builder.maximumIssues)
+        .expireAfterAccess(builder.expireAfter.toNanos(), TimeUnit.NANOSECONDS)
+        .ticker(ticker)
+        .build();
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * Records an occurrence of the issue and decides whether it is kept. Returns {@link
+   * #SAMPLED_OUT} if it is not, otherwise the number of occurrences sampled out since the
+   * previous one kept.
+   */
+  public long sample(String issueHashId) {
+    long now = ticker.read();
+    IssueState state = issues.getIfPresent(issueHashId);
+    if (state == null) {
+      IssueState created = new IssueState(now);
+      state = issues.asMap().putIfAbsent(issueHashId, created);
+      if (state == null) {
+        state = created;
+      }
+    }
+    boolean keep = state.occurrences.incrementAndGet() <= alwaysKeepFirst
+        || tryAcquireTokens(state.bucket, now);
+    if (!keep) {
+      state.sampledOut.incrementAndGet();
+      sampledOutCount.increment();
+      return SAMPLED_OUT;
+    }
+    keptCount.increment();
+    return state.sampledOut.getAndSet(0L);
+  }
+
+  /**
+   * Returns the approximate number of issues currently tracked.
+   */
+  public long size() {
+    return issues.size();
+  }
+
+  /**
+   * Returns how many occurrences were kept.
+   */
+  public long getKeptCount() {
+    return keptCount.sum();
+  }
+
+  /**
+   * Returns how many occurrences were sampled out.
+   */
+  public long getSampledOutCount() {
+    return sampledOutCount.sum();
+  }
+
+  /**
+   * Takes a token from the issue's bucket and from the global budget, or from neither. The
+   * global token is taken before the issue's, and given back if a concurrent occurrence of the
+   * same issue took the last issue token in between.
+   */
+  private boolean tryAcquireTokens(AtomicLong issueBucket, long now) {
+    if (globalBucket == null) {
+      return tryAcquire(issueBucket, now, issueIntervalNanos, issueToleranceNanos);
+    }
+    if (!hasToken(issueBucket, now, issueToleranceNanos)
+        || !tryAcquire(globalBucket, now, globalIntervalNanos, globalToleranceNanos)) {
+      return false;
+    }
+    if (tryAcquire(issueBucket, now, issueIntervalNanos, issueToleranceNanos)) {
+      return true;
+    }
+    globalBucket.addAndGet(-globalIntervalNanos);
+    return false;
+  }
+
+  private static boolean hasToken(AtomicLong bucket, long now, long toleranceNanos) {
+    long arrival = bucket.get();
+    return arrival - now <= toleranceNanos;
+  }
+
+  /**
+   * Takes one token from the bucket, whose value is the theoretical arrival time of the next
+   * occurrence. A token is available while that time is at most the tolerance ahead of now.
+   */
+  private static boolean tryAcquire(
+      AtomicLong bucket, long now, long intervalNanos, long toleranceNanos) {
+    while (true) {
+      long arrival = bucket.get();
+      long base = arrival - now > 0L ? arrival : now;
+      if (base - now > toleranceNanos) {
+        return false;
+      }
+      if (bucket.compareAndSet(arrival, base + intervalNanos)) {
+        return true;
+      }
+    }
+  }
+
+  private static long intervalNanos(double ratePerSecond) {
+    return Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1L) / ratePerSecond));
+  }
+
+  private static final class IssueState {
+
+    private final AtomicLong occurrences = new AtomicLong();
+    private final AtomicLong sampledOut = new AtomicLong();
+    private final AtomicLong bucket;
+
+    IssueState(long now) {
+      this.bucket = new AtomicLong(now);
+    }
+  }
+
+  /**
+   * Builder for {@link ErrorSampler}.
+   */
+  public static final class Builder {
+
+    private long alwaysKeepFirst = 5L;
+    private double issueRatePerSecond = 1.0d;
+    private long issueBurst = 5L;
+    private double globalRatePerSecond;
+    private long globalBurst = 1L;
+    private long maximumIssues = 50000L;
+    private Duration expireAfter = Duration.ofHours(1L);
+    private Ticker ticker = Ticker.systemTicker();
+
+    private Builder() {}
+
+    /**
+     * Sets how many occurrences of each issue are kept before sampling starts.
+     */
+    public Builder setAlwaysKeepFirst(long alwaysKeepFirst) {
+      checkArgument(alwaysKeepFirst >= 0L, "alwaysKeepFirst must not be negative");
+      this.alwaysKeepFirst = alwaysKeepFirst;
+      return this;
+    }
+
+    /**
+     * Sets the rate at which each issue earns tokens and how many it can save up.
+     */
+    public Builder setIssueRate(double ratePerSecond, long burst) {
+      checkArgument(ratePerSecond > 0.0d, "ratePerSecond must be positive");
+      checkArgument(burst > 0L, "burst must be positive");
+      this.issueRatePerSecond = ratePerSecond;
+      this.issueBurst = burst;
+      return this;
+    }
+
+    /**
+     * Sets a budget shared by all issues once past their first occurrences. There is no global
+     * budget by default.
+     */
+    public Builder setGlobalRate(double ratePerSecond, long burst) {
+      checkArgument(ratePerSecond > 0.0d, "ratePerSecond must be positive");
+      checkArgument(burst > 0L, "burst must be positive");
+      this.globalRatePerSecond = ratePerSecond;
+      this.globalBurst = burst;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of issues tracked, least recently seen are evicted.
+     */
+    public Builder setMaximumIssues(long maximumIssues) {
+      checkArgument(maximumIssues > 0L, "maximumIssues must be positive");
+      this.maximumIssues = maximumIssues;
+      return this;
+    }
+
+    /**
+     * Sets how long an issue is tracked after its last occurrence.
+     */
+    public Builder setExpireAfter(Duration expireAfter) {
+      this.expireAfter = checkNotNull(expireAfter, "expireAfter is required");
+      return this;
+    }
+
+    Builder setTicker(Ticker ticker) {
+      this.ticker = checkNotNull(ticker, "ticker is required");
+      return this;
+    }
+
+    public ErrorSampler build() {
+      return new ErrorSampler(this);
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static io.opentelemetry.futureapi.events.AttributeUtils.buildAnyAttribute;
+import static io.opentelemetry.futureapi.events.EventConstants.ATTR_ERROR_OBJECT;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.opentelemetry.proto.common.v1.AttributeKeyValue;
+import io.opentelemetry.proto.common.v1.AttributeKeyValue.ValueType;
+import io.opentelemetry.proto.events.v1.ErrorData;
+import io.opentelemetry.proto.events.v1.Event;
+import io.opentelemetry.proto.events.v1.StackTrace;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Prepares a batch of error events for export by sending each distinct stack trace in full only
+ * once. Later occurrences keep just their {@code stack_trace_hash_id} and {@code
+ * dropped_frames_count}; receivers rehydrate them with a {@link StackTraceTable} built from the
+ * same batch.
+ */
+public class EventBatchEncoder {
+
+  private static final Logger LOGGER = Logger.getLogger(EventBatchEncoder.class.getName());
+
+  /**
+   * Returns the batch with repeated stack traces replaced by hash-only references. Events are
+   * kept in order; events without repeated stacks are returned unchanged.
+   */
+  public List<Event> encode(List<Event> events) {
+    Set<String> sentStackTraces = new HashSet<>();
+    List<Event> encoded = new ArrayList<>(events.size());
+    for (Event event : events) {
+      encoded.add(encodeEvent(event, sentStackTraces));
+    }
+    return encoded;
+  }
+
+  private Event encodeEvent(Event event, Set<String> sentStackTraces) {
+    for (int i = 0; i < event.getAttributesCount(); i++) {
+      AttributeKeyValue attribute = event.getAttributes(i);
+      if (!ATTR_ERROR_OBJECT.equals(attribute.getKey())
+          || attribute.getType() != ValueType.ANY) {
+        continue;
+      }
+      ErrorData errorData;
+      try {
+        errorData = attribute.getAnyValue().unpack(ErrorData.class);
+      } catch (InvalidProtocolBufferException cause) {
+        LOGGER.log(Level.WARNING, cause.getMessage(), cause);
+        return event;
+      }
+      ErrorData deduplicated = deduplicate(errorData, sentStackTraces);
+      if (deduplicated == errorData) {
+        return event;
+      }
+      return event.toBuilder()
+          .setAttributes(i, buildAnyAttribute(ATTR_ERROR_OBJECT, deduplicated))
+          .build();
+    }
+    return event;
+  }
+
+  private static ErrorData deduplicate(ErrorData errorData, Set<String> sentStackTraces) {
+    ErrorData.Builder builder = null;
+    for (int i = 0; i < errorData.getExceptionsCount(); i++) {
+      StackTrace stackTrace = errorData.getExceptions(i).getStack();
+      String hashId = stackTrace.getStackTraceHashId();
+      if (isNullOrEmpty(hashId) || stackTrace.getFramesCount() == 0
+          || sentStackTraces.add(hashId)) {
+        continue;
+      }
+      if (builder == null) {
+        builder = errorData.toBuilder();
+      }
+      builder.getExceptionsBuilder(i).setStack(StackTrace.newBuilder()
+          .setStackTraceHashId(hashId)
+          .setDroppedFramesCount(stackTrace.getDroppedFramesCount()));
+    }
+    return builder == null ? errorData : builder.build();
+  }
+}
@@ -23,6 +23,9 @@ public final class EventConstants {
   public static final String ATTR_ERROR_OBJECT = "error.object";
   public static final String ATTR_ERROR_MESSAGE = "error.message";
   public static final String ATTR_ERROR_STACK = "error.stack";
+  public static final String ATTR_ERROR_AGGREGATE = "error.aggregate";
+  public static final String ATTR_SERVICE_NAME = "service.name";
+  public static final String ATTR_SERVICE_VERSION = "service.version";
 
   private EventConstants() {}
 }
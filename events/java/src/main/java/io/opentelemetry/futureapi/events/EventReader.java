@@ -0,0 +1,308 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.opentelemetry.futureapi.events.EventConstants.ATTR_ERROR_OBJECT;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.protobuf.Any;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.ExtensionRegistryLite;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+import io.opentelemetry.proto.common.v1.AttributeKeyValue;
+import io.opentelemetry.proto.events.v1.ErrorData;
+import io.opentelemetry.proto.events.v1.Event;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+/**
+ * Reads serialized {@link Event}s in a single pass over the wire format without building the
+ * full message. The {@code error.object} payload is parsed straight into {@link ErrorData},
+ * attributes not asked for are skipped unparsed and every other field is kept. Reading works on
+ * heap, direct and memory-mapped buffers alike; the bytes are not copied into intermediate
+ * {@code ByteString}s. Length-delimited streams of events can be read frame by frame as their
+ * bytes arrive with {@link #readDelimited}. Instances are immutable and thread-safe.
+ */
+public final class EventReader {
+
+  private static final Logger LOGGER = Logger.getLogger(EventReader.class.getName());
+
+  private static final String ERROR_DATA_TYPE_NAME = ErrorData.getDescriptor().getFullName();
+
+  private static final int EVENT_TIME_UNIXNANO_TAG = (1 << 3) | WireFormat.WIRETYPE_FIXED64;
+  private static final int EVENT_DESCRIPTION_TAG = (2 << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+  private static final int EVENT_ATTRIBUTES_TAG = (3 << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+  private static final int EVENT_DROPPED_ATTRIBUTES_COUNT_TAG =
+      (4 << 3) | WireFormat.WIRETYPE_VARINT;
+  private static final int ATTRIBUTE_KEY_TAG = (1 << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+  private static final int ATTRIBUTE_TYPE_TAG = (2 << 3) | WireFormat.WIRETYPE_VARINT;
+  private static final int ATTRIBUTE_STRING_VALUE_TAG =
+      (3 << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+  private static final int ATTRIBUTE_INT_VALUE_TAG = (4 << 3) | WireFormat.WIRETYPE_VARINT;
+  private static final int ATTRIBUTE_DOUBLE_VALUE_TAG = (5 << 3) | WireFormat.WIRETYPE_FIXED64;
+  private static final int ATTRIBUTE_BOOL_VALUE_TAG = (6 << 3) | WireFormat.WIRETYPE_VARINT;
+  private static final int ATTRIBUTE_ANY_VALUE_TAG =
+      (7 << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+  private static final int ANY_TYPE_URL_TAG = (1 << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+  private static final int ANY_VALUE_TAG = (2 << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+
+  private final Set<String> retainedAttributes;
+
+  /**
+   * Creates a reader keeping no attributes besides {@code error.object}.
+   */
+  public EventReader() {
+    this(ImmutableSet.of());
+  }
+
+  /**
+   * Creates a reader keeping the attributes with the given keys in the event header.
+   */
+  public EventReader(Collection<String> retainedAttributes) {
+    checkNotNull(retainedAttributes, "retainedAttributes is required");
+    this.retainedAttributes = ImmutableSet.copyOf(retainedAttributes);
+  }
+
+  /**
+   * Reads the event held by the remaining bytes of the buffer. The buffer's position is left
+   * unchanged. The returned event holds the retained attributes and the decoded error data, which
+   * is serialized back into {@code error.object} only if {@link DecodedEvent#getEvent()} is
+   * called.
+   *
+   * @throws InvalidProtocolBufferException if the bytes are not a valid event
+   */
+  public DecodedEvent read(ByteBuffer buffer) throws InvalidProtocolBufferException {
+    checkNotNull(buffer, "buffer is required");
+    CodedInputStream input = CodedInputStream.newInstance(buffer.duplicate());
+    try {
+      return readEvent(input);
+    } catch (InvalidProtocolBufferException cause) {
+      throw cause;
+    } catch (IOException cause) {
+      throw new InvalidProtocolBufferException(cause);
+    }
+  }
+
+  /**
+   * Reads the next varint length-prefixed event from the buffer and advances its position past
+   * it. Returns {@code null}, leaving the position unchanged, if the buffer does not yet hold the
+   * whole frame, so callers can append more bytes and retry.
+   *
+   * @throws InvalidProtocolBufferException if the frame length is malformed or larger than a
+   *     buffer can hold, or the frame is not a valid event
+   */
+  @Nullable
+  public DecodedEvent readDelimited(ByteBuffer buffer) throws InvalidProtocolBufferException {
+    checkNotNull(buffer, "buffer is required");
+    int start = buffer.position();
+    long length = 0L;
+    int offset = start;
+    for (int shift = 0; ; shift += 7) {
+      if (offset >= buffer.limit()) {
+        return null;
+      }
+      if (shift >= 35) {
+        throw new InvalidProtocolBufferException("malformed frame length");
+      }
+      byte next = buffer.get(offset++);
+      length |= (long) (next & 0x7F) << shift;
+      if (next >= 0) {
+        break;
+      }
+    }
+    if (length > Integer.MAX_VALUE) {
+      throw new InvalidProtocolBufferException("frame length " + length + " is too large");
+    }
+    if (length > buffer.limit() - offset) {
+      return null;
+    }
+    ByteBuffer frame = buffer.duplicate();
+    frame.position(offset);
+    frame.limit(offset + (int) length);
+    DecodedEvent event = read(frame);
+    buffer.position(offset + (int) length);
+    return event;
+  }
+
+  private DecodedEvent readEvent(CodedInputStream input) throws IOException {
+    Event.Builder header = Event.newBuilder();
+    ErrorData errorData = null;
+    for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+      switch (tag) {
+        case EVENT_TIME_UNIXNANO_TAG:
+          header.setTimeUnixnano(input.readFixed64());
+          break;
+        case EVENT_DESCRIPTION_TAG:
+          header.setDescription(input.readStringRequireUtf8());
+          break;
+        case EVENT_ATTRIBUTES_TAG:
+          int limit = input.pushLimit(input.readRawVarint32());
+          ErrorData decoded = readAttribute(input, header);
+          if (decoded != null) {
+            errorData = decoded;
+          }
+          input.popLimit(limit);
+          break;
+        case EVENT_DROPPED_ATTRIBUTES_COUNT_TAG:
+          header.setDroppedAttributesCount(input.readUInt32());
+          break;
+        default:
+          input.skipField(tag);
+          break;
+      }
+    }
+    if (errorData == null) {
+      return DecodedEvent.of(header.build());
+    }
+    return DecodedEvent.ofErrorData(header.build(), errorData);
+  }
+
+  /**
+   * Reads one attribute up to the current limit. Returns the error data if it is {@code
+   * error.object}, adds the attribute to the header if it is retained and otherwise skips the
+   * rest of it once the key is known. Serializers write the key first, so fields preceding it are
+   * rare and simply parsed.
+   */
+  @Nullable
+  private ErrorData readAttribute(CodedInputStream input, Event.Builder header)
+      throws IOException {
+    AttributeKeyValue.Builder attribute = null;
+    for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+      if (tag != ATTRIBUTE_KEY_TAG) {
+        if (attribute == null) {
+          attribute = AttributeKeyValue.newBuilder();
+        }
+        readAttributeField(input, tag, attribute);
+        continue;
+      }
+      String key = input.readStringRequireUtf8();
+      if (ATTR_ERROR_OBJECT.equals(key)) {
+        ErrorData errorData = readErrorObject(input);
+        if (errorData == null && attribute != null && attribute.hasAnyValue()) {
+          errorData = unpackErrorData(attribute.getAnyValue());
+        }
+        return errorData;
+      }
+      if (!retainedAttributes.contains(key)) {
+        input.skipMessage();
+        return null;
+      }
+      if (attribute == null) {
+        attribute = AttributeKeyValue.newBuilder();
+      }
+      header.addAttributes(attribute.setKey(key).mergeFrom(input));
+      return null;
+    }
+    if (attribute != null && retainedAttributes.contains(attribute.getKey())) {
+      header.addAttributes(attribute);
+    }
+    return null;
+  }
+
+  private static void readAttributeField(CodedInputStream input, int tag,
+      AttributeKeyValue.Builder attribute) throws IOException {
+    switch (tag) {
+      case ATTRIBUTE_TYPE_TAG:
+        attribute.setTypeValue(input.readEnum());
+        break;
+      case ATTRIBUTE_STRING_VALUE_TAG:
+        attribute.setStringValue(input.readStringRequireUtf8());
+        break;
+      case ATTRIBUTE_INT_VALUE_TAG:
+        attribute.setIntValue(input.readInt64());
+        break;
+      case ATTRIBUTE_DOUBLE_VALUE_TAG:
+        attribute.setDoubleValue(input.readDouble());
+        break;
+      case ATTRIBUTE_BOOL_VALUE_TAG:
+        attribute.setBoolValue(input.readBool());
+        break;
+      case ATTRIBUTE_ANY_VALUE_TAG:
+        input.readMessage(attribute.getAnyValueBuilder(), ExtensionRegistryLite.getEmptyRegistry());
+        break;
+      default:
+        input.skipField(tag);
+        break;
+    }
+  }
+
+  /**
+   * Reads the rest of the {@code error.object} attribute, parsing its {@code Any} payload in
+   * place.
+   */
+  @Nullable
+  private static ErrorData readErrorObject(CodedInputStream input) throws IOException {
+    ErrorData errorData = null;
+    for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+      if (tag == ATTRIBUTE_ANY_VALUE_TAG) {
+        int limit = input.pushLimit(input.readRawVarint32());
+        errorData = readErrorDataAny(input);
+        input.popLimit(limit);
+      } else {
+        input.skipField(tag);
+      }
+    }
+    return errorData;
+  }
+
+  @Nullable
+  private static ErrorData readErrorDataAny(CodedInputStream input) throws IOException {
+    String typeUrl = "";
+    ErrorData.Builder errorData = null;
+    for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+      if (tag == ANY_TYPE_URL_TAG) {
+        typeUrl = input.readStringRequireUtf8();
+      } else if (tag == ANY_VALUE_TAG) {
+        int limit = input.pushLimit(input.readRawVarint32());
+        errorData = ErrorData.newBuilder().mergeFrom(input);
+        input.popLimit(limit);
+      } else {
+        input.skipField(tag);
+      }
+    }
+    if (!ERROR_DATA_TYPE_NAME.equals(getTypeName(typeUrl))) {
+      LOGGER.log(Level.WARNING, "error.object is not ErrorData but " + typeUrl);
+      return null;
+    }
+    return errorData == null ? ErrorData.getDefaultInstance() : errorData.build();
+  }
+
+  /**
+   * Returns the type name following the last slash of the URL, which is all {@link Any#is}
+   * compares, so any URL prefix is accepted.
+   */
+  private static String getTypeName(String typeUrl) {
+    int pos = typeUrl.lastIndexOf('/');
+    return pos < 0 ? "" : typeUrl.substring(pos + 1);
+  }
+
+  @Nullable
+  private static ErrorData unpackErrorData(Any value) throws InvalidProtocolBufferException {
+    if (!value.is(ErrorData.class)) {
+      LOGGER.log(Level.WARNING, "error.object is not ErrorData but " + value.getTypeUrl());
+      return null;
+    }
+    return value.unpack(ErrorData.class);
+  }
+}
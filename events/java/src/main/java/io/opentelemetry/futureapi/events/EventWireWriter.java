@@ -0,0 +1,209 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static io.opentelemetry.futureapi.events.EventConstants.ATTR_ERROR_MESSAGE;
+import static io.opentelemetry.futureapi.events.EventConstants.ATTR_ERROR_OBJECT;
+import static io.opentelemetry.futureapi.events.EventConstants.EVENT_ERROR;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import io.opentelemetry.proto.common.v1.AttributeKeyValue;
+import io.opentelemetry.proto.common.v1.AttributeKeyValue.ValueType;
+import io.opentelemetry.proto.events.v1.ErrorData;
+import io.opentelemetry.proto.events.v1.StackTrace;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Encodes an {@code error} event in the {@code events.v1} wire format straight from the parts
+ * {@link ThrowableTranslator} decided on, without building {@code Event}, {@code ErrorData} or
+ * {@code ExceptionData} messages or serializing the {@code error.object} payload into a {@code
+ * ByteString} first. Nested lengths are computed in a sizing pass before anything is written.
+ * The bytes are identical to serializing the event the translator builds, so fields are written
+ * in field number order and fields holding their default value are left out as protobuf does.
+ * Instances encode a single event and are not thread-safe.
+ */
+final class EventWireWriter {
+
+  private static final String ERROR_DATA_TYPE_URL =
+      "type.googleapis.com/" + ErrorData.getDescriptor().getFullName();
+
+  private final long timeUnixnano;
+  private final String message;
+  private final String hashId;
+  private final String issueHashId;
+  private final long sampledOutCount;
+  private final List<AttributeKeyValue> arguments;
+  private final List<ExceptionFields> exceptions = new ArrayList<>();
+
+  EventWireWriter(long timeUnixnano, String message, String hashId, String issueHashId,
+      long sampledOutCount, List<AttributeKeyValue> arguments) {
+    this.timeUnixnano = timeUnixnano;
+    this.message = message;
+    this.hashId = hashId;
+    this.issueHashId = issueHashId;
+    this.sampledOutCount = sampledOutCount;
+    this.arguments = arguments;
+  }
+
+  /**
+   * Adds the next exception of the chain. The stack trace is typically taken from the
+   * translator's cache and written as is.
+   */
+  void addException(String id, @Nullable String message, String type, @Nullable String cause,
+      StackTrace stack) {
+    exceptions.add(new ExceptionFields(id, message, type, cause, stack));
+  }
+
+  /**
+   * Writes the event, preceded by its length as a varint if delimited, and returns the number
+   * of bytes written. The output is not flushed.
+   */
+  int write(CodedOutputStream output, boolean delimited) throws IOException {
+    int errorDataSize = computeErrorDataSize();
+    int anySize = computeStringSize(1, ERROR_DATA_TYPE_URL)
+        + computeLengthDelimitedSize(2, errorDataSize);
+    int errorObjectSize = computeStringSize(1, ATTR_ERROR_OBJECT)
+        + CodedOutputStream.computeEnumSize(2, ValueType.ANY_VALUE)
+        + computeLengthDelimitedSize(7, anySize);
+    int errorMessageSize = computeStringSize(1, ATTR_ERROR_MESSAGE)
+        + computeStringSize(3, message);
+    int eventSize = computeStringSize(2, EVENT_ERROR)
+        + computeLengthDelimitedSize(3, errorMessageSize)
+        + computeLengthDelimitedSize(3, errorObjectSize);
+    if (timeUnixnano != 0L) {
+      eventSize += CodedOutputStream.computeFixed64Size(1, timeUnixnano);
+    }
+
+    int written = eventSize;
+    if (delimited) {
+      output.writeUInt32NoTag(eventSize);
+      written += CodedOutputStream.computeUInt32SizeNoTag(eventSize);
+    }
+    if (timeUnixnano != 0L) {
+      output.writeFixed64(1, timeUnixnano);
+    }
+    writeString(output, 2, EVENT_ERROR);
+    writeLengthDelimitedTag(output, 3, errorMessageSize);
+    writeString(output, 1, ATTR_ERROR_MESSAGE);
+    writeString(output, 3, message);
+    writeLengthDelimitedTag(output, 3, errorObjectSize);
+    writeString(output, 1, ATTR_ERROR_OBJECT);
+    output.writeEnum(2, ValueType.ANY_VALUE);
+    writeLengthDelimitedTag(output, 7, anySize);
+    writeString(output, 1, ERROR_DATA_TYPE_URL);
+    writeLengthDelimitedTag(output, 2, errorDataSize);
+    writeErrorData(output);
+    return written;
+  }
+
+  private int computeErrorDataSize() {
+    int size = computeStringSize(1, hashId) + computeStringSize(2, issueHashId);
+    for (ExceptionFields exception : exceptions) {
+      exception.size = exception.computeSize();
+      size += computeLengthDelimitedSize(3, exception.size);
+    }
+    for (AttributeKeyValue argument : arguments) {
+      size += CodedOutputStream.computeMessageSize(4, argument);
+    }
+    if (sampledOutCount != 0L) {
+      size += CodedOutputStream.computeUInt64Size(7, sampledOutCount);
+    }
+    return size;
+  }
+
+  private void writeErrorData(CodedOutputStream output) throws IOException {
+    writeString(output, 1, hashId);
+    writeString(output, 2, issueHashId);
+    for (ExceptionFields exception : exceptions) {
+      writeLengthDelimitedTag(output, 3, exception.size);
+      exception.write(output);
+    }
+    for (AttributeKeyValue argument : arguments) {
+      output.writeMessage(4, argument);
+    }
+    if (sampledOutCount != 0L) {
+      output.writeUInt64(7, sampledOutCount);
+    }
+  }
+
+  private static int computeStringSize(int fieldNumber, @Nullable String value) {
+    return value == null || value.isEmpty()
+        ? 0 : CodedOutputStream.computeStringSize(fieldNumber, value);
+  }
+
+  private static int computeLengthDelimitedSize(int fieldNumber, int size) {
+    return CodedOutputStream.computeTagSize(fieldNumber)
+        + CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+  }
+
+  private static void writeString(CodedOutputStream output, int fieldNumber,
+      @Nullable String value) throws IOException {
+    if (value != null && !value.isEmpty()) {
+      output.writeString(fieldNumber, value);
+    }
+  }
+
+  private static void writeLengthDelimitedTag(CodedOutputStream output, int fieldNumber, int size)
+      throws IOException {
+    output.writeTag(fieldNumber, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    output.writeUInt32NoTag(size);
+  }
+
+  /**
+   * The fields of one {@code ExceptionData}.
+   */
+  private static final class ExceptionFields {
+
+    private final String id;
+    @Nullable
+    private final String message;
+    private final String type;
+    @Nullable
+    private final String cause;
+    private final StackTrace stack;
+    private int size;
+
+    ExceptionFields(String id, @Nullable String message, String type, @Nullable String cause,
+        StackTrace stack) {
+      this.id = id;
+      this.message = message;
+      this.type = type;
+      this.cause = cause;
+      this.stack = stack;
+    }
+
+    int computeSize() {
+      return computeStringSize(1, id)
+          + computeStringSize(3, message)
+          + computeStringSize(4, type)
+          + computeStringSize(5, cause)
+          + CodedOutputStream.computeMessageSize(6, stack);
+    }
+
+    void write(CodedOutputStream output) throws IOException {
+      writeString(output, 1, id);
+      writeString(output, 3, message);
+      writeString(output, 4, type);
+      writeString(output, 5, cause);
+      output.writeMessage(6, stack);
+    }
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+/**
+ * Computes the de-duplication ids ({@code hash_id}, {@code issue_hash_id} and {@code
+ * stack_trace_hash_id}) recorded by {@link ThrowableTranslator}. The ids only need to be stable
+ * and well distributed, not cryptographically strong.
+ */
+public interface FingerprintStrategy {
+
+  /**
+   * Returns a new fingerprinter. Fingerprinters are not thread-safe and are used for a single id.
+   */
+  Fingerprinter newFingerprinter();
+
+  /**
+   * Returns the default strategy, a 128-bit Murmur3 hash fed with chars and primitives directly.
+   */
+  static FingerprintStrategy murmur3_128() {
+    return Murmur3FingerprintStrategy.INSTANCE;
+  }
+
+  /**
+   * Returns the MD5 strategy which produces the same ids as earlier versions of this library.
+   */
+  static FingerprintStrategy md5() {
+    return Md5FingerprintStrategy.INSTANCE;
+  }
+
+  /**
+   * Accumulates the values making up a single id.
+   */
+  interface Fingerprinter {
+
+    Fingerprinter putString(CharSequence value);
+
+    Fingerprinter putLong(long value);
+
+    Fingerprinter putDouble(double value);
+
+    Fingerprinter putBoolean(boolean value);
+
+    Fingerprinter putStackTraceElement(StackTraceElement element);
+
+    /**
+     * Returns the id as a lower case hexadecimal string. The fingerprinter must not be used
+     * afterwards.
+     */
+    String hash();
+  }
+}
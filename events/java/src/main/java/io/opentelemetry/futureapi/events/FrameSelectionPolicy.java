@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import java.util.Collection;
+
+/**
+ * Chooses which frames of a stack trace are recorded when it holds more frames than may be
+ * sent. Selection runs on the raw {@link StackTraceElement}s before any of them are converted or
+ * hashed, so frames left out cost nothing further. Frames not selected are counted in {@code
+ * dropped_frames_count}. Policies are thread-safe.
+ */
+public interface FrameSelectionPolicy {
+
+  /**
+   * Returns the indexes of the frames to record in ascending order, at most {@code maxFrames} of
+   * them.
+   */
+  int[] select(StackTraceElement[] frames, int maxFrames);
+
+  /**
+   * Returns the default policy, keeping the top {@code maxFrames} frames.
+   */
+  static FrameSelectionPolicy head() {
+    return HeadFrameSelectionPolicy.INSTANCE;
+  }
+
+  /**
+   * Returns a policy keeping the top frames and the bottom {@code tailFrames} frames, so the
+   * thread entry point such as {@code main} or {@code Thread.run} is not lost.
+   */
+  static FrameSelectionPolicy headAndTail(int tailFrames) {
+    return new HeadAndTailFrameSelectionPolicy(tailFrames);
+  }
+
+  /**
+   * Returns a policy keeping the top frame and then preferring application frames, those whose
+   * class name starts with one of the included prefixes and none of the excluded ones. Remaining
+   * room is filled with other frames from the top.
+   */
+  static FrameSelectionPolicy applicationFirst(
+      Collection<String> includePrefixes, Collection<String> excludePrefixes) {
+    return new ApplicationFirstFrameSelectionPolicy(includePrefixes, excludePrefixes);
+  }
+
+  /**
+   * Returns a policy that drops repetitions of recursive frames, directly recursive or cycling
+   * through up to four methods, keeping the first occurrence of each cycle, and then selects
+   * from the remaining frames with the delegate.
+   */
+  static FrameSelectionPolicy collapseRecursion(FrameSelectionPolicy delegate) {
+    return new CollapseRecursionFrameSelectionPolicy(delegate);
+  }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.opentelemetry.futureapi.events.EventConstants.ATTR_SERVICE_NAME;
+import static io.opentelemetry.futureapi.events.EventConstants.ATTR_SERVICE_VERSION;
+
+import com.google.devtools.clouderrorreporting.v1beta1.ReportedErrorEvent;
+import io.opentelemetry.proto.events.v1.Event;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Converts a batch of error events into chunks of Google Cloud error events ready to be sent
+ * together. Events are grouped by the service context taken from their {@code service.name} and
+ * {@code service.version} attributes, falling back to the configured default, and each chunk
+ * holds events of a single service context only. Chunks are bounded by the number of events and
+ * by the sum of their serialized sizes; an event larger than the byte bound on its own forms a
+ * chunk by itself. Stack traces sent as references by {@link EventBatchEncoder} are rehydrated
+ * from the batch. Batches of at least the parallel threshold are converted in slices on the
+ * executor. Instances are immutable and thread-safe.
+ */
+public final class GcpErrorEventBatchEncoder {
+
+  private static final Comparator<ServiceKey> SERVICE_ORDER = Comparator
+      .comparing((ServiceKey key) -> key.service)
+      .thenComparing(key -> key.version);
+
+  private final int maxChunkSize;
+  private final long maxChunkBytes;
+  private final int parallelThreshold;
+  private final int sliceSize;
+  private final Executor executor;
+  private final ServiceKey defaultService;
+  private final OtelEvent2GcpErrorEventConverter defaultConverter;
+
+  private GcpErrorEventBatchEncoder(Builder builder) {
+    this.maxChunkSize = builder.maxChunkSize;
+    this.maxChunkBytes = builder.maxChunkBytes;
+    this.parallelThreshold = builder.parallelThreshold;
+    this.sliceSize = builder.sliceSize;
+    this.executor = builder.executor;
+    this.defaultService = new ServiceKey(builder.defaultService, builder.defaultVersion);
+    this.defaultConverter =
+        new OtelEvent2GcpErrorEventConverter(defaultService.service, defaultService.version);
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * Converts the events and returns the chunks, ordered by service name and version. Events are
+   * kept in their original order within a service context. Events that are not errors are left
+   * out.
+   */
+  public List<List<ReportedErrorEvent>> encode(List<Event> events) {
+    checkNotNull(events, "events is required");
+    List<List<ReportedErrorEvent>> chunks = new ArrayList<>();
+    encode(events, chunks::add);
+    return chunks;
+  }
+
+  /**
+   * Converts the events and passes each chunk to the sink as soon as it is complete. Returns the
+   * number of chunks sent.
+   */
+  public int encode(List<Event> events, Consumer<List<ReportedErrorEvent>> sink) {
+    checkNotNull(events, "events is required");
+    checkNotNull(sink, "sink is required");
+    List<DecodedEvent> decoded = new ArrayList<>(events.size());
+    for (Event event : events) {
+      decoded.add(DecodedEvent.of(event));
+    }
+    StackTraceTable stackTraces = StackTraceTable.fromDecodedEvents(decoded);
+    Map<ServiceKey, OtelEvent2GcpErrorEventConverter> converters = new HashMap<>();
+    converters.put(defaultService, defaultConverter);
+    List<Entry> entries = new ArrayList<>(decoded.size());
+    for (DecodedEvent event : decoded) {
+      ServiceKey service = serviceOf(event);
+      entries.add(new Entry(event, service, converters.computeIfAbsent(service,
+          key -> new OtelEvent2GcpErrorEventConverter(key.service, key.version))));
+    }
+    entries.sort((left, right) -> SERVICE_ORDER.compare(left.service, right.service));
+    convertAll(entries, stackTraces);
+    return sendChunks(entries, sink);
+  }
+
+  private ServiceKey serviceOf(DecodedEvent event) {
+    AttributeView attributes = event.getAttributeView();
+    String service = attributes.getString(ATTR_SERVICE_NAME);
+    if (service == null) {
+      return defaultService;
+    }
+    String version = attributes.getString(ATTR_SERVICE_VERSION);
+    return new ServiceKey(service, version == null ? defaultService.version : version);
+  }
+
+  /**
+   * Converts every entry. The slices share the stack trace table, which is complete before they
+   * are submitted and only read by them.
+   */
+  private void convertAll(List<Entry> entries, StackTraceTable stackTraces) {
+    if (entries.size() < parallelThreshold) {
+      convertRange(entries, 0, entries.size(), stackTraces);
+      return;
+    }
+    List<CompletableFuture<Void>> slices = new ArrayList<>();
+    for (int start = 0; start < entries.size(); start += sliceSize) {
+      int from = start;
+      int to = Math.min(start + sliceSize, entries.size());
+      slices.add(CompletableFuture.runAsync(
+          () -> convertRange(entries, from, to, stackTraces), executor));
+    }
+    try {
+      CompletableFuture.allOf(slices.toArray(new CompletableFuture<?>[0])).join();
+    } catch (CompletionException cause) {
+      if (cause.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) cause.getCause();
+      }
+      throw cause;
+    }
+  }
+
+  private void convertRange(List<Entry> entries, int from, int to, StackTraceTable stackTraces) {
+    for (int index = from; index < to; index++) {
+      Entry entry = entries.get(index);
+      entry.converted = entry.converter.convert(entry.event, stackTraces);
+    }
+  }
+
+  private int sendChunks(List<Entry> entries, Consumer<List<ReportedErrorEvent>> sink) {
+    int chunkCount = 0;
+    List<ReportedErrorEvent> chunk = new ArrayList<>();
+    long chunkBytes = 0L;
+    ServiceKey chunkService = null;
+    for (Entry entry : entries) {
+      if (entry.converted == null) {
+        continue;
+      }
+      long size = entry.converted.getSerializedSize();
+      if (!chunk.isEmpty() && (!entry.service.equals(chunkService)
+          || chunk.size() >= maxChunkSize || chunkBytes + size > maxChunkBytes)) {
+        sink.accept(chunk);
+        chunkCount++;
+        chunk = new ArrayList<>();
+        chunkBytes = 0L;
+      }
+      chunk.add(entry.converted);
+      chunkBytes += size;
+      chunkService = entry.service;
+    }
+    if (!chunk.isEmpty()) {
+      sink.accept(chunk);
+      chunkCount++;
+    }
+    return chunkCount;
+  }
+
+  /**
+   * An event of the batch with its service context, the converter for it and, once converted,
+   * its GCP event. Converters are created per batch, so service contexts seen in earlier batches
+   * are not kept. Each entry is written by a single conversion task and read after all tasks
+   * have completed.
+   */
+  private static final class Entry {
+
+    private final DecodedEvent event;
+    private final ServiceKey service;
+    private final OtelEvent2GcpErrorEventConverter converter;
+    private ReportedErrorEvent converted;
+
+    Entry(DecodedEvent event, ServiceKey service, OtelEvent2GcpErrorEventConverter converter) {
+      this.event = event;
+      this.service = service;
+      this.converter = converter;
+    }
+  }
+
+  private static final class ServiceKey {
+
+    private final String service;
+    private final String version;
+
+    ServiceKey(String service, String version) {
+      this.service = service;
+      this.version = version;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof ServiceKey)) {
+        return false;
+      }
+      ServiceKey other = (ServiceKey) obj;
+      return service.equals(other.service) && version.equals(other.version);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(service, version);
+    }
+  }
+
+  /**
+   * Builder for {@link GcpErrorEventBatchEncoder}.
+   */
+  public static final class Builder {
+
+    private static final int DEFAULT_MAX_CHUNK_SIZE = 100;
+    private static final long DEFAULT_MAX_CHUNK_BYTES = 1024L * 1024L;
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 256;
+    private static final int DEFAULT_SLICE_SIZE = 64;
+
+    private int maxChunkSize = DEFAULT_MAX_CHUNK_SIZE;
+    private long maxChunkBytes = DEFAULT_MAX_CHUNK_BYTES;
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    private int sliceSize = DEFAULT_SLICE_SIZE;
+    private Executor executor = ForkJoinPool.commonPool();
+    private String defaultService = "unknown";
+    private String defaultVersion = "0.x";
+
+    private Builder() {}
+
+    /**
+     * Sets the maximum number of events in a chunk.
+     */
+    public Builder setMaxChunkSize(int maxChunkSize) {
+      checkArgument(maxChunkSize > 0, "maxChunkSize must be positive");
+      this.maxChunkSize = maxChunkSize;
+      return this;
+    }
+
+    /**
+     * Sets the maximum sum of the serialized sizes of the events in a chunk.
+     */
+    public Builder setMaxChunkBytes(long maxChunkBytes) {
+      checkArgument(maxChunkBytes > 0L, "maxChunkBytes must be positive");
+      this.maxChunkBytes = maxChunkBytes;
+      return this;
+    }
+
+    /**
+     * Sets the batch size from which events are converted in parallel, in slices of the given
+     * number of events.
+     */
+    public Builder setParallelism(int parallelThreshold, int sliceSize) {
+      checkArgument(parallelThreshold > 0, "parallelThreshold must be positive");
+      checkArgument(sliceSize > 0, "sliceSize must be positive");
+      this.parallelThreshold = parallelThreshold;
+      this.sliceSize = sliceSize;
+      return this;
+    }
+
+    /**
+     * Sets the executor running parallel conversions, the common fork join pool by default.
+     */
+    public Builder setExecutor(Executor executor) {
+      this.executor = checkNotNull(executor, "executor is required");
+      return this;
+    }
+
+    /**
+     * Sets the service context of events without a {@code service.name} attribute, and the
+     * version of events without a {@code service.version} attribute.
+     */
+    public Builder setDefaultService(String service, String version) {
+      this.defaultService = checkNotNull(service, "service is required");
+      this.defaultVersion = checkNotNull(version, "version is required");
+      return this;
+    }
+
+    public GcpErrorEventBatchEncoder build() {
+      return new GcpErrorEventBatchEncoder(this);
+    }
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Keeps the top frames and a fixed number of bottom frames of the stack.
+ */
+final class HeadAndTailFrameSelectionPolicy implements FrameSelectionPolicy {
+
+  private final int tailFrames;
+
+  HeadAndTailFrameSelectionPolicy(int tailFrames) {
+    checkArgument(tailFrames >= 0, "tailFrames must not be negative");
+    this.tailFrames = tailFrames;
+  }
+
+  @Override
+  public int[] select(StackTraceElement[] frames, int maxFrames) {
+    if (frames.length <= maxFrames) {
+      return HeadFrameSelectionPolicy.range(frames.length);
+    }
+    int tail = Math.min(tailFrames, maxFrames);
+    int head = maxFrames - tail;
+    int[] selected = new int[maxFrames];
+    for (int i = 0; i < head; i++) {
+      selected[i] = i;
+    }
+    for (int i = 0; i < tail; i++) {
+      selected[head + i] = frames.length - tail + i;
+    }
+    return selected;
+  }
+}
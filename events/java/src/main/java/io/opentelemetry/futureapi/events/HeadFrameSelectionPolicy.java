@@ -0,0 +1,40 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+/**
+ * Keeps the top frames of the stack.
+ */
+final class HeadFrameSelectionPolicy implements FrameSelectionPolicy {
+
+  static final HeadFrameSelectionPolicy INSTANCE = new HeadFrameSelectionPolicy();
+
+  @Override
+  public int[] select(StackTraceElement[] frames, int maxFrames) {
+    return range(Math.min(frames.length, maxFrames));
+  }
+
+  static int[] range(int length) {
+    int[] selected = new int[length];
+    for (int i = 0; i < length; i++) {
+      selected[i] = i;
+    }
+    return selected;
+  }
+
+  private HeadFrameSelectionPolicy() {}
+}
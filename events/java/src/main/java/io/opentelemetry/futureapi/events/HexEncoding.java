@@ -0,0 +1,66 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+/**
+ * Table-driven lower case hexadecimal encoding for fingerprints and generated ids.
+ */
+final class HexEncoding {
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  static String encode(byte[] bytes) {
+    char[] chars = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+      chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xf];
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Encodes the value as 16 characters, most significant digit first.
+   */
+  static String encode(long value) {
+    char[] chars = new char[Long.BYTES * 2];
+    for (int i = chars.length - 1; i >= 0; i--) {
+      chars[i] = HEX_DIGITS[(int) value & 0xf];
+      value >>>= 4;
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Encodes the bytes of both values in little-endian order, first then second.
+   */
+  static String encodeLittleEndian(long first, long second) {
+    char[] chars = new char[Long.BYTES * 4];
+    fillLittleEndian(chars, 0, first);
+    fillLittleEndian(chars, Long.BYTES * 2, second);
+    return new String(chars);
+  }
+
+  private static void fillLittleEndian(char[] chars, int offset, long value) {
+    for (int i = 0; i < Long.BYTES; i++) {
+      int b = (int) (value >>> (i * Byte.SIZE));
+      chars[offset + i * 2] = HEX_DIGITS[(b >> 4) & 0xf];
+      chars[offset + i * 2 + 1] = HEX_DIGITS[b & 0xf];
+    }
+  }
+
+  private HexEncoding() {}
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+/**
+ * Generates the {@code id} of each {@code ExceptionData} in an error. Ids are referenced by the
+ * {@code cause} of the enclosing exception and only need to be unique within one {@code
+ * ErrorData}.
+ */
+public interface IdGenerator {
+
+  /**
+   * Returns a new sequence used for the exceptions of a single {@code ErrorData}.
+   */
+  IdSequence newSequence();
+
+  /**
+   * Returns the default generator. Each sequence starts at a {@link
+   * java.util.concurrent.ThreadLocalRandom} value and counts up from there, formatted as 16
+   * lower case hexadecimal characters.
+   */
+  static IdGenerator random() {
+    return RandomIdGenerator.INSTANCE;
+  }
+
+  /**
+   * Returns a generator producing a random {@link java.util.UUID} for every id. This is what
+   * earlier versions used and is considerably slower since it draws on {@code SecureRandom}.
+   */
+  static IdGenerator uuid() {
+    return UuidIdGenerator.INSTANCE;
+  }
+
+  /**
+   * Ids for the exceptions of a single error. Sequences are not thread-safe.
+   */
+  interface IdSequence {
+
+    String nextId();
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static io.opentelemetry.futureapi.events.AttributeUtils.convertStackFrame2StackTraceElement;
+
+import com.rollbar.notifier.wrapper.ThrowableWrapper;
+import io.opentelemetry.proto.events.v1.ExceptionData;
+import io.opentelemetry.proto.events.v1.StackTrace;
+import java.util.Arrays;
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * A Rollbar {@link ThrowableWrapper} over one {@link ExceptionData} of a chain. Stack frames are
+ * converted to {@link StackTraceElement}s on the first call to {@link #getStackTrace()} and kept,
+ * so events Rollbar drops before reading the stack never pay for the conversion. Equality and
+ * {@link #toString()} follow {@code RollbarThrowableWrapper}. Instances are thread-safe; racing
+ * first calls may convert the frames more than once but return equal arrays.
+ */
+final class LazyThrowableWrapper implements ThrowableWrapper {
+
+  private static final StackTraceElement[] NO_FRAMES = new StackTraceElement[0];
+
+  private final ExceptionData exception;
+  private final StackTrace stackTrace;
+  @Nullable
+  private final StackFrameInternPool stackFramePool;
+  @Nullable
+  private final ThrowableWrapper cause;
+  @Nullable
+  private volatile StackTraceElement[] stackTraceElements;
+
+  LazyThrowableWrapper(ExceptionData exception, StackTrace stackTrace,
+      @Nullable StackFrameInternPool stackFramePool, @Nullable ThrowableWrapper cause) {
+    this.exception = exception;
+    this.stackTrace = stackTrace;
+    this.stackFramePool = stackFramePool;
+    this.cause = cause;
+  }
+
+  @Override
+  public String getClassName() {
+    return exception.getType();
+  }
+
+  @Override
+  public String getMessage() {
+    return exception.getMesssage();
+  }
+
+  /**
+   * Returns the converted frames, or {@code null} if the exception has none.
+   */
+  @Nullable
+  @Override
+  public StackTraceElement[] getStackTrace() {
+    StackTraceElement[] result = stackTraceElements;
+    if (result == null) {
+      result = convertStackTrace();
+      stackTraceElements = result;
+    }
+    return result == NO_FRAMES ? null : result;
+  }
+
+  @Nullable
+  @Override
+  public ThrowableWrapper getCause() {
+    return cause;
+  }
+
+  /**
+   * Returns {@code null}; the original throwable is not available after translation.
+   */
+  @Nullable
+  @Override
+  public Throwable getThrowable() {
+    return null;
+  }
+
+  boolean isStackTraceConverted() {
+    return stackTraceElements != null;
+  }
+
+  private StackTraceElement[] convertStackTrace() {
+    if (stackTrace.getFramesCount() == 0) {
+      return NO_FRAMES;
+    }
+    StackTraceElement[] target = new StackTraceElement[stackTrace.getFramesCount()];
+    for (int i = 0; i < target.length; i++) {
+      target[i] = convertStackFrame2StackTraceElement(stackTrace.getFrames(i), stackFramePool);
+    }
+    return target;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof LazyThrowableWrapper)) {
+      return false;
+    }
+    LazyThrowableWrapper other = (LazyThrowableWrapper) obj;
+    return getClassName().equals(other.getClassName())
+        && getMessage().equals(other.getMessage())
+        && Arrays.equals(getStackTrace(), other.getStackTrace())
+        && Objects.equals(cause, other.cause);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = getClassName().hashCode();
+    result = 31 * result + getMessage().hashCode();
+    result = 31 * result + Arrays.hashCode(getStackTrace());
+    return 31 * result + Objects.hashCode(cause);
+  }
+
+  @Override
+  public String toString() {
+    return "LazyThrowableWrapper{className='" + getClassName() + '\''
+        + ", message='" + getMessage() + '\''
+        + ", stackTraceElements=" + Arrays.toString(getStackTrace())
+        + ", cause=" + cause
+        + '}';
+  }
+}
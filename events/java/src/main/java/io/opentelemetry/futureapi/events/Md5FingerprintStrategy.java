@@ -0,0 +1,155 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Fingerprints using MD5 over the UTF-8 bytes of strings, matching the ids produced before
+ * fingerprinting became pluggable. Strings are encoded into a reusable per-thread scratch buffer
+ * rather than through {@link String#getBytes}.
+ *
+ * <p>Earlier versions passed numeric arguments to the digest through a {@code ByteBuffer} whose
+ * position was already at its limit, so no bytes were hashed for them. Numbers are skipped here
+ * as well to keep {@code hash_id} values identical.
+ */
+final class Md5FingerprintStrategy implements FingerprintStrategy {
+
+  private static final Logger LOGGER = Logger.getLogger(Md5FingerprintStrategy.class.getName());
+
+  static final Md5FingerprintStrategy INSTANCE = new Md5FingerprintStrategy();
+
+  private static final int SCRATCH_SIZE = 256;
+  private static final ThreadLocal<byte[]> SCRATCH =
+      ThreadLocal.withInitial(() -> new byte[SCRATCH_SIZE]);
+
+  private final MessageDigest prototype = newMessageDigest();
+  private final boolean cloneable = isCloneable(prototype);
+
+  @Override
+  public Fingerprinter newFingerprinter() {
+    return new Md5Fingerprinter(
+        cloneable ? cloneMessageDigest() : newMessageDigest(), SCRATCH.get());
+  }
+
+  private MessageDigest cloneMessageDigest() {
+    try {
+      return (MessageDigest) prototype.clone();
+    } catch (CloneNotSupportedException willNeverBeThrown) {
+      throw new IllegalStateException(willNeverBeThrown);
+    }
+  }
+
+  private static boolean isCloneable(MessageDigest digest) {
+    try {
+      digest.clone();
+      return true;
+    } catch (CloneNotSupportedException cause) {
+      return false;
+    }
+  }
+
+  private static MessageDigest newMessageDigest() {
+    try {
+      return MessageDigest.getInstance("MD5");
+    } catch (NoSuchAlgorithmException willNeverBeThrown) {
+      LOGGER.log(Level.INFO, "unexpected exception", willNeverBeThrown);
+      throw new IllegalStateException(willNeverBeThrown);
+    }
+  }
+
+  private Md5FingerprintStrategy() {}
+
+  private static final class Md5Fingerprinter implements Fingerprinter {
+
+    private final MessageDigest digest;
+    private final byte[] scratch;
+
+    Md5Fingerprinter(MessageDigest digest, byte[] scratch) {
+      this.digest = digest;
+      this.scratch = scratch;
+    }
+
+    /**
+     * Encodes the value as UTF-8 exactly as {@link String#getBytes} does, including replacing
+     * unpaired surrogates with {@code '?'}.
+     */
+    @Override
+    public Fingerprinter putString(CharSequence value) {
+      int count = 0;
+      for (int i = 0, n = value.length(); i < n; i++) {
+        if (count > scratch.length - 4) {
+          digest.update(scratch, 0, count);
+          count = 0;
+        }
+        char c = value.charAt(i);
+        if (c < 0x80) {
+          scratch[count++] = (byte) c;
+        } else if (c < 0x800) {
+          scratch[count++] = (byte) (0xc0 | (c >> 6));
+          scratch[count++] = (byte) (0x80 | (c & 0x3f));
+        } else if (Character.isSurrogate(c)) {
+          if (Character.isHighSurrogate(c) && i + 1 < n
+              && Character.isLowSurrogate(value.charAt(i + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(++i));
+            scratch[count++] = (byte) (0xf0 | (codePoint >> 18));
+            scratch[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+            scratch[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+            scratch[count++] = (byte) (0x80 | (codePoint & 0x3f));
+          } else {
+            scratch[count++] = (byte) '?';
+          }
+        } else {
+          scratch[count++] = (byte) (0xe0 | (c >> 12));
+          scratch[count++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+          scratch[count++] = (byte) (0x80 | (c & 0x3f));
+        }
+      }
+      digest.update(scratch, 0, count);
+      return this;
+    }
+
+    @Override
+    public Fingerprinter putLong(long value) {
+      return this;
+    }
+
+    @Override
+    public Fingerprinter putDouble(double value) {
+      return this;
+    }
+
+    @Override
+    public Fingerprinter putBoolean(boolean value) {
+      digest.update((byte) (value ? 1 : 0));
+      return this;
+    }
+
+    @Override
+    public Fingerprinter putStackTraceElement(StackTraceElement element) {
+      return putString(element.toString());
+    }
+
+    @Override
+    public String hash() {
+      return HexEncoding.encode(digest.digest());
+    }
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+/**
+ * Fingerprints using 128-bit Murmur3 (x64 variant, seed 0). Strings are hashed as UTF-16 chars
+ * and primitives as their little-endian bytes, producing the same values as Guava's {@code
+ * Hashing.murmur3_128()}. Input is packed straight into the pending 16-byte block so nothing is
+ * allocated per value.
+ */
+final class Murmur3FingerprintStrategy implements FingerprintStrategy {
+
+  static final Murmur3FingerprintStrategy INSTANCE = new Murmur3FingerprintStrategy();
+
+  private static final int CHUNK_SIZE = 16;
+  private static final long C1 = 0x87c37b91114253d5L;
+  private static final long C2 = 0x4cf5ad432745937fL;
+
+  @Override
+  public Fingerprinter newFingerprinter() {
+    return new Murmur3Fingerprinter();
+  }
+
+  private Murmur3FingerprintStrategy() {}
+
+  private static final class Murmur3Fingerprinter implements Fingerprinter {
+
+    private long h1;
+    private long h2;
+    private long k1;
+    private long k2;
+    private int position;
+    private long length;
+
+    @Override
+    public Fingerprinter putString(CharSequence value) {
+      for (int i = 0, n = value.length(); i < n; i++) {
+        putChar(value.charAt(i));
+      }
+      return this;
+    }
+
+    @Override
+    public Fingerprinter putLong(long value) {
+      if (position == 0) {
+        k1 = value;
+        position = Long.BYTES;
+      } else if (position == Long.BYTES) {
+        k2 = value;
+        position = CHUNK_SIZE;
+        flushChunk();
+      } else {
+        for (int i = 0; i < Long.BYTES; i++) {
+          putByte((int) (value >>> (i * Byte.SIZE)));
+        }
+      }
+      return this;
+    }
+
+    @Override
+    public Fingerprinter putDouble(double value) {
+      return putLong(Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public Fingerprinter putBoolean(boolean value) {
+      putByte(value ? 1 : 0);
+      return this;
+    }
+
+    @Override
+    public Fingerprinter putStackTraceElement(StackTraceElement element) {
+      putString(element.getClassName());
+      putChar('.');
+      putString(element.getMethodName());
+      putChar('(');
+      if (element.getFileName() != null) {
+        putString(element.getFileName());
+      }
+      putChar(':');
+      putInt(element.getLineNumber());
+      putChar(')');
+      return this;
+    }
+
+    @Override
+    public String hash() {
+      long totalLength = length + position;
+      if (position > 0) {
+        h1 ^= mixK1(k1);
+        h2 ^= mixK2(k2);
+      }
+      h1 ^= totalLength;
+      h2 ^= totalLength;
+      h1 += h2;
+      h2 += h1;
+      h1 = fmix64(h1);
+      h2 = fmix64(h2);
+      h1 += h2;
+      h2 += h1;
+      return HexEncoding.encodeLittleEndian(h1, h2);
+    }
+
+    private void putChar(char value) {
+      if ((position & 1) == 0) {
+        if (position < Long.BYTES) {
+          k1 |= (long) value << (position * Byte.SIZE);
+        } else {
+          k2 |= (long) value << ((position - Long.BYTES) * Byte.SIZE);
+        }
+        position += Character.BYTES;
+        if (position == CHUNK_SIZE) {
+          flushChunk();
+        }
+      } else {
+        putByte(value);
+        putByte(value >>> Byte.SIZE);
+      }
+    }
+
+    private void putInt(int value) {
+      if ((position & 3) == 0) {
+        long bits = value & 0xffffffffL;
+        if (position < Long.BYTES) {
+          k1 |= bits << (position * Byte.SIZE);
+        } else {
+          k2 |= bits << ((position - Long.BYTES) * Byte.SIZE);
+        }
+        position += Integer.BYTES;
+        if (position == CHUNK_SIZE) {
+          flushChunk();
+        }
+      } else {
+        for (int i = 0; i < Integer.BYTES; i++) {
+          putByte(value >>> (i * Byte.SIZE));
+        }
+      }
+    }
+
+    private void putByte(int value) {
+      long bits = value & 0xffL;
+      if (position < Long.BYTES) {
+        k1 |= bits << (position * Byte.SIZE);
+      } else {
+        k2 |= bits << ((position - Long.BYTES) * Byte.SIZE);
+      }
+      position++;
+      if (position == CHUNK_SIZE) {
+        flushChunk();
+      }
+    }
+
+    private void flushChunk() {
+      h1 ^= mixK1(k1);
+      h1 = Long.rotateLeft(h1, 27);
+      h1 += h2;
+      h1 = h1 * 5 + 0x52dce729;
+      h2 ^= mixK2(k2);
+      h2 = Long.rotateLeft(h2, 31);
+      h2 += h1;
+      h2 = h2 * 5 + 0x38495ab5;
+      k1 = 0L;
+      k2 = 0L;
+      position = 0;
+      length += CHUNK_SIZE;
+    }
+
+    private static long mixK1(long k1) {
+      k1 *= C1;
+      k1 = Long.rotateLeft(k1, 31);
+      k1 *= C2;
+      return k1;
+    }
+
+    private static long mixK2(long k2) {
+      k2 *= C2;
+      k2 = Long.rotateLeft(k2, 33);
+      k2 *= C1;
+      return k2;
+    }
+
+    private static long fmix64(long k) {
+      k ^= k >>> 33;
+      k *= 0xff51afd7ed558ccdL;
+      k ^= k >>> 33;
+      k *= 0xc4ceb9fe1a85ec53L;
+      k ^= k >>> 33;
+      return k;
+    }
+  }
+}
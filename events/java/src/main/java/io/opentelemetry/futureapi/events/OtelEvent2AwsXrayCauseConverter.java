@@ -17,54 +17,116 @@
 package io.opentelemetry.futureapi.events;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static io.opentelemetry.futureapi.events.AttributeUtils.convertAttributeListToMap;
+import static com.google.common.base.Strings.isNullOrEmpty;
 import static io.opentelemetry.futureapi.events.AttributeUtils.convertStackFrame2StackTraceElement;
-import static io.opentelemetry.futureapi.events.EventConstants.ATTR_ERROR_OBJECT;
 import static io.opentelemetry.futureapi.events.EventConstants.EVENT_ERROR;
 
 import com.amazonaws.xray.entities.Cause;
 import com.amazonaws.xray.entities.ThrowableDescription;
-import com.google.protobuf.Any;
-import com.google.protobuf.InvalidProtocolBufferException;
 import io.opentelemetry.proto.events.v1.ErrorData;
 import io.opentelemetry.proto.events.v1.Event;
 import io.opentelemetry.proto.events.v1.ExceptionData;
 import io.opentelemetry.proto.events.v1.StackTrace;
 import io.opentelemetry.proto.events.v1.StackTrace.StackFrame;
-import java.util.Map;
+import java.util.List;
 import java.util.logging.Logger;
 import javax.annotation.Nullable;
 
 /**
- * Converts an OpenTelemetry event containing error info into an AWS X-Ray Cause object.
+ * Converts an OpenTelemetry event containing error info into an AWS X-Ray Cause object. When
+ * given an {@link XrayExceptionRegistry} and the id of the trace the event belongs to, an
+ * exception chain already described in an earlier segment of the trace is sent as a reference to
+ * that description instead of repeating its stacks.
  */
 public class OtelEvent2AwsXrayCauseConverter {
 
   private static final Logger LOGGER =
       Logger.getLogger(OtelEvent2AwsXrayCauseConverter.class.getName());
 
+  @Nullable
+  private final StackFrameInternPool stackFramePool;
+  @Nullable
+  private final XrayExceptionRegistry exceptionRegistry;
+
+  public OtelEvent2AwsXrayCauseConverter() {
+    this(null, null);
+  }
+
+  /**
+   * Creates a converter taking stack trace elements from the pool, which may be shared with the
+   * translator and other converters.
+   */
+  public OtelEvent2AwsXrayCauseConverter(@Nullable StackFrameInternPool stackFramePool) {
+    this(stackFramePool, null);
+  }
+
+  /**
+   * Creates a converter which also records described exceptions in the registry and refers to
+   * them when they recur in the same trace.
+   */
+  public OtelEvent2AwsXrayCauseConverter(@Nullable StackFrameInternPool stackFramePool,
+      @Nullable XrayExceptionRegistry exceptionRegistry) {
+    this.stackFramePool = stackFramePool;
+    this.exceptionRegistry = exceptionRegistry;
+  }
+
   @Nullable
   public Cause convert(Event source) {
+    return convert(source, null);
+  }
+
+  /**
+   * Converts an event from a batch, rehydrating stack traces sent as hash-only references from
+   * the batch's table.
+   */
+  @Nullable
+  public Cause convert(Event source, @Nullable StackTraceTable stackTraces) {
+    checkNotNull(source, "source is required");
+    return convert(DecodedEvent.of(source), stackTraces);
+  }
+
+  /**
+   * Converts an event whose decoded error data may be shared with other converters.
+   */
+  @Nullable
+  public Cause convert(DecodedEvent source) {
+    return convert(source, null);
+  }
+
+  @Nullable
+  public Cause convert(DecodedEvent source, @Nullable StackTraceTable stackTraces) {
+    return convert(source, stackTraces, null);
+  }
+
+  /**
+   * Converts an event recorded in a segment of the given trace.
+   */
+  @Nullable
+  public Cause convert(Event source, @Nullable StackTraceTable stackTraces,
+      @Nullable String traceId) {
+    checkNotNull(source, "source is required");
+    return convert(DecodedEvent.of(source), stackTraces, traceId);
+  }
+
+  /**
+   * Converts an event recorded in a segment of the given trace. Exceptions described earlier in
+   * the trace are referred to by id if the converter has a registry; without a registry or trace
+   * id every exception is described in full.
+   */
+  @Nullable
+  public Cause convert(DecodedEvent source, @Nullable StackTraceTable stackTraces,
+      @Nullable String traceId) {
     checkNotNull(source, "source is required");
     if (!EVENT_ERROR.equals(source.getDescription())) {
       LOGGER.info("converter only supports events of type \"error\"");
       return null;
     }
-    return doConvert(source);
+    return doConvert(source, stackTraces, traceId);
   }
 
-  private Cause doConvert(Event source) {
-    Map<String, Object> attributeMap = convertAttributeListToMap(source.getAttributesList());
-    Any any = (Any) attributeMap.get(ATTR_ERROR_OBJECT);
-    if (any == null) {
-      return null;
-    }
-    ErrorData errorData = null;
-    try {
-      errorData = any.unpack(ErrorData.class);
-    } catch (InvalidProtocolBufferException cause) {
-      LOGGER.log(java.util.logging.Level.WARNING, cause.getMessage(), cause);
-    }
+  private Cause doConvert(DecodedEvent source, @Nullable StackTraceTable stackTraces,
+      @Nullable String traceId) {
+    ErrorData errorData = source.getErrorData();
     if (errorData == null || errorData.getExceptionsList().isEmpty()) {
       return null;
     }
@@ -72,21 +134,80 @@ public class OtelEvent2AwsXrayCauseConverter {
     Cause target = new Cause();
     target.setId(errorData.getHashId());
     target.setMessage(message);
-    for (ExceptionData exception : errorData.getExceptionsList()) {
-      ThrowableDescription descriptor = convertException(exception);
-      target.addException(descriptor);
+    List<StackTrace> stacks = StackTraceTable.resolveAll(stackTraces, errorData);
+    String[] chainKeys = exceptionRegistry == null || traceId == null
+        ? null : computeChainKeys(errorData, stacks, stackTraces);
+    ThrowableDescription previous = null;
+    for (int i = 0; i < errorData.getExceptionsCount(); i++) {
+      ExceptionData exception = errorData.getExceptions(i);
+      if (chainKeys != null && !isNullOrEmpty(exception.getId())) {
+        String describedId =
+            exceptionRegistry.describeOrReference(traceId, chainKeys[i], exception.getId());
+        if (describedId != null) {
+          if (previous == null) {
+            target.setId(describedId);
+          } else {
+            previous.setCause(describedId);
+          }
+          break;
+        }
+      }
+      previous = convertException(exception, stacks.get(i));
+      target.addException(previous);
     }
     return target;
   }
 
-  private ThrowableDescription convertException(ExceptionData source) {
+  /**
+   * Returns for each exception a key identifying it together with its causes, so an exception
+   * is only referred to when its whole remaining chain was described before. Stacks restored
+   * from common frames, including those sent as a reference to a table entry with common frames,
+   * are keyed by their frames because their hash only covers the frames that were sent.
+   */
+  private static String[] computeChainKeys(ErrorData errorData, List<StackTrace> stacks,
+      @Nullable StackTraceTable stackTraces) {
+    String[] keys = new String[errorData.getExceptionsCount()];
+    String causeKey = "";
+    for (int i = keys.length - 1; i >= 0; i--) {
+      ExceptionData exception = errorData.getExceptions(i);
+      FingerprintStrategy.Fingerprinter fingerprinter =
+          FingerprintStrategy.murmur3_128().newFingerprinter();
+      putLengthPrefixed(fingerprinter, exception.getType());
+      putLengthPrefixed(fingerprinter, exception.getMesssage());
+      StackTrace stackTrace = stacks.get(i);
+      if (!StackTraceTable.hasCommonFrames(stackTraces, exception.getStack())
+          && !isNullOrEmpty(stackTrace.getStackTraceHashId())) {
+        putLengthPrefixed(fingerprinter, stackTrace.getStackTraceHashId());
+      } else {
+        fingerprinter.putLong(stackTrace.getFramesCount());
+        for (StackFrame frame : stackTrace.getFramesList()) {
+          putLengthPrefixed(fingerprinter, frame.getLoadModule());
+          putLengthPrefixed(fingerprinter, frame.getFunctionName());
+          putLengthPrefixed(fingerprinter, frame.getFileName());
+          fingerprinter.putLong(frame.getLineNumber());
+        }
+      }
+      fingerprinter.putLong(stackTrace.getDroppedFramesCount());
+      putLengthPrefixed(fingerprinter, causeKey);
+      causeKey = fingerprinter.hash();
+      keys[i] = causeKey;
+    }
+    return keys;
+  }
+
+  private static void putLengthPrefixed(
+      FingerprintStrategy.Fingerprinter fingerprinter, String value) {
+    fingerprinter.putLong(value.length()).putString(value);
+  }
+
+  private ThrowableDescription convertException(ExceptionData source, StackTrace stackTrace) {
     ThrowableDescription target = new ThrowableDescription();
     target.setId(source.getId());
     target.setMessage(source.getMesssage());
     target.setType(source.getType());
     target.setCause(source.getCause());
-    target.setSkipped(source.getStack().getDroppedFramesCount());
-    target.setStack(convertStackTrace(source.getStack()));
+    target.setSkipped(stackTrace.getDroppedFramesCount());
+    target.setStack(convertStackTrace(stackTrace));
     return target;
   }
 
@@ -97,7 +218,7 @@ public class OtelEvent2AwsXrayCauseConverter {
     StackTraceElement[] target = new StackTraceElement[source.getFramesList().size()];
     for (int i = 0; i < target.length; i++) {
       StackFrame frame = source.getFramesList().get(i);
-      target[i] = convertStackFrame2StackTraceElement(frame);
+      target[i] = convertStackFrame2StackTraceElement(frame, stackFramePool);
     }
     return target;
   }
@@ -17,104 +17,134 @@
 package io.opentelemetry.futureapi.events;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static io.opentelemetry.futureapi.events.AttributeUtils.convertAttributeListToMap;
-import static io.opentelemetry.futureapi.events.AttributeUtils.convertStackFrame2StackTraceElement;
-import static io.opentelemetry.futureapi.events.EventConstants.ATTR_ERROR_OBJECT;
 import static io.opentelemetry.futureapi.events.EventConstants.EVENT_ERROR;
 
 import com.google.devtools.clouderrorreporting.v1beta1.ErrorContext;
 import com.google.devtools.clouderrorreporting.v1beta1.ReportedErrorEvent;
 import com.google.devtools.clouderrorreporting.v1beta1.ServiceContext;
 import com.google.devtools.clouderrorreporting.v1beta1.SourceLocation;
-import com.google.protobuf.Any;
-import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Timestamp;
 import io.opentelemetry.proto.events.v1.ErrorData;
 import io.opentelemetry.proto.events.v1.Event;
 import io.opentelemetry.proto.events.v1.ExceptionData;
+import io.opentelemetry.proto.events.v1.StackTrace;
 import io.opentelemetry.proto.events.v1.StackTrace.StackFrame;
-import java.util.Map;
+import java.util.List;
 import java.util.logging.Logger;
 import javax.annotation.Nullable;
 
 /**
  * Converts an OpenTelemetry event containing error info into a Google Cloud error event.
+ * Instances are immutable and can be shared between threads.
  */
 public class OtelEvent2GcpErrorEventConverter {
 
   private static final Logger LOGGER =
       Logger.getLogger(OtelEvent2AwsXrayCauseConverter.class.getName());
 
+  private static final String DEFAULT_SERVICE = "unknown";
+  private static final String DEFAULT_VERSION = "0.x";
+  private static final StackFrame UNKNOWN_FRAME = StackFrame.newBuilder()
+      .setLoadModule("Unknown")
+      .setFunctionName("unknown")
+      .setFileName("Unknown.java")
+      .build();
+  private static final ErrorContext UNKNOWN_FRAME_CONTEXT = buildContext(UNKNOWN_FRAME);
+  /** Characters of a frame line besides its names: tab, "at ", dots, parentheses, newline. */
+  private static final int FRAME_LINE_OVERHEAD = 8;
+  /** Characters of a line number including its colon, enough for any int. */
+  private static final int LINE_NUMBER_LENGTH = 12;
+
+  private final ServiceContext serviceContext;
+
+  public OtelEvent2GcpErrorEventConverter() {
+    this(DEFAULT_SERVICE, DEFAULT_VERSION);
+  }
+
+  /**
+   * Creates a converter reporting errors for the given service and version.
+   */
+  public OtelEvent2GcpErrorEventConverter(String service, String version) {
+    checkNotNull(service, "service is required");
+    checkNotNull(version, "version is required");
+    this.serviceContext = ServiceContext.newBuilder()
+        .setService(service)
+        .setVersion(version)
+        .build();
+  }
+
   @Nullable
   public ReportedErrorEvent convert(Event source) {
+    return convert(source, null);
+  }
+
+  /**
+   * Converts an event from a batch, rehydrating stack traces sent as hash-only references from
+   * the batch's table.
+   */
+  @Nullable
+  public ReportedErrorEvent convert(Event source, @Nullable StackTraceTable stackTraces) {
+    checkNotNull(source, "source is required");
+    return convert(DecodedEvent.of(source), stackTraces);
+  }
+
+  /**
+   * Converts an event whose decoded error data may be shared with other converters.
+   */
+  @Nullable
+  public ReportedErrorEvent convert(DecodedEvent source) {
+    return convert(source, null);
+  }
+
+  @Nullable
+  public ReportedErrorEvent convert(DecodedEvent source, @Nullable StackTraceTable stackTraces) {
     checkNotNull(source, "source is required");
     if (!EVENT_ERROR.equals(source.getDescription())) {
       LOGGER.info("converter only supports events of type \"error\"");
       return null;
     }
-    return doConvert(source);
+    return doConvert(source, stackTraces);
   }
 
-  private ReportedErrorEvent doConvert(Event source) {
-    Map<String, Object> attributeMap = convertAttributeListToMap(source.getAttributesList());
-    Any any = (Any) attributeMap.get(ATTR_ERROR_OBJECT);
-    if (any == null) {
-      return null;
-    }
-    ErrorData errorData = null;
-    try {
-      errorData = any.unpack(ErrorData.class);
-    } catch (InvalidProtocolBufferException cause) {
-      LOGGER.log(java.util.logging.Level.WARNING, cause.getMessage(), cause);
-    }
+  private ReportedErrorEvent doConvert(DecodedEvent source, @Nullable StackTraceTable stackTraces) {
+    ErrorData errorData = source.getErrorData();
     if (errorData == null || errorData.getExceptionsList().isEmpty()) {
       return null;
     }
     ExceptionData exceptionData = errorData.getExceptions(0);
+    List<StackTrace> stacks = StackTraceTable.resolveAll(stackTraces, errorData);
+    StackTrace firstStackTrace = stacks.get(0);
     StackFrame stackFrame;
-    if (exceptionData.getStack() != null && !exceptionData.getStack().getFramesList().isEmpty()) {
-      stackFrame = exceptionData.getStack().getFramesList().get(0);
+    ErrorContext context;
+    if (firstStackTrace.getFramesCount() > 0) {
+      stackFrame = firstStackTrace.getFrames(0);
+      context = buildContext(stackFrame);
     } else {
-      stackFrame = StackFrame.newBuilder()
-          .setLoadModule("Unknown")
-          .setFunctionName("unknown")
-          .setFileName("Unknown.java")
-          .build();
+      stackFrame = UNKNOWN_FRAME;
+      context = UNKNOWN_FRAME_CONTEXT;
     }
     Timestamp timestamp = Timestamp.newBuilder()
         .setSeconds(source.getTimeUnixnano() / 1000000000L)
         .setNanos((int) (source.getTimeUnixnano() % 1000000000L))
         .build();
-    ServiceContext serviceContext = ServiceContext.newBuilder()
-        .setService("unknown")
-        .setVersion("0.x")
-        .build();
-    SourceLocation location = SourceLocation.newBuilder()
-        .setFilePath(stackFrame.getFileName())
-        .setFunctionName(stackFrame.getFunctionName())
-        .setLineNumber((int) stackFrame.getLineNumber())
-        .build();
-    ErrorContext context = ErrorContext.newBuilder()
-        .setReportLocation(location)
-        .build();
-    StringBuilder message = new StringBuilder();
+    StringBuilder message = new StringBuilder(estimateMessageLength(stackFrame, errorData, stacks));
     message.append(stackFrame.getLoadModule()).append(" ")
         .append(stackFrame.getFunctionName()).append("\n");
     message.append("Error: ").append(exceptionData.getMesssage()).append("\n");
-    int index = 0;
-    for (ExceptionData exception : errorData.getExceptionsList()) {
+    for (int index = 0; index < errorData.getExceptionsCount(); index++) {
+      ExceptionData exception = errorData.getExceptions(index);
       if (index > 0) {
         message.append("Caused by: ");
       }
       message.append(exception.getType()).append(": ").append(exception.getMesssage()).append("\n");
-      for (StackFrame frame : exception.getStack().getFramesList()) {
-        message.append("\tat ").append(convertStackFrame2StackTraceElement(frame)).append("\n");
+      StackTrace stackTrace = stacks.get(index);
+      for (int frame = 0; frame < stackTrace.getFramesCount(); frame++) {
+        appendFrame(message.append("\tat "), stackTrace.getFrames(frame)).append("\n");
       }
-      if (exception.getStack().getDroppedFramesCount() > 0) {
-        message.append("\t... ").append(exception.getStack().getDroppedFramesCount())
+      if (stackTrace.getDroppedFramesCount() > 0) {
+        message.append("\t... ").append(stackTrace.getDroppedFramesCount())
             .append(" more\n");
       }
-      index++;
     }
 
     return ReportedErrorEvent.newBuilder()
@@ -125,4 +155,54 @@ public class OtelEvent2GcpErrorEventConverter {
         .build();
   }
 
+  private static ErrorContext buildContext(StackFrame stackFrame) {
+    SourceLocation location = SourceLocation.newBuilder()
+        .setFilePath(stackFrame.getFileName())
+        .setFunctionName(stackFrame.getFunctionName())
+        .setLineNumber((int) stackFrame.getLineNumber())
+        .build();
+    return ErrorContext.newBuilder()
+        .setReportLocation(location)
+        .build();
+  }
+
+  /**
+   * Returns an upper bound of the message length from the lengths of the strings it is made of,
+   * so the builder never has to grow.
+   */
+  private static int estimateMessageLength(
+      StackFrame stackFrame, ErrorData errorData, List<StackTrace> stacks) {
+    int length = stackFrame.getLoadModule().length() + stackFrame.getFunctionName().length()
+        + errorData.getExceptions(0).getMesssage().length() + 10;
+    for (int index = 0; index < errorData.getExceptionsCount(); index++) {
+      ExceptionData exception = errorData.getExceptions(index);
+      length += exception.getType().length() + exception.getMesssage().length() + 14;
+      StackTrace stackTrace = stacks.get(index);
+      for (int frame = 0; frame < stackTrace.getFramesCount(); frame++) {
+        StackFrame current = stackTrace.getFrames(frame);
+        length += current.getLoadModule().length() + current.getFunctionName().length()
+            + current.getFileName().length() + FRAME_LINE_OVERHEAD + LINE_NUMBER_LENGTH;
+      }
+      length += 21;
+    }
+    return length;
+  }
+
+  /**
+   * Appends the frame formatted as {@link StackTraceElement#toString()} formats an element
+   * without class loader and module names.
+   */
+  private static StringBuilder appendFrame(StringBuilder target, StackFrame frame) {
+    int lineNumber = (int) frame.getLineNumber();
+    target.append(frame.getLoadModule()).append('.').append(frame.getFunctionName()).append('(');
+    if (lineNumber == -2) {
+      return target.append("Native Method)");
+    }
+    target.append(frame.getFileName());
+    if (lineNumber >= 0) {
+      target.append(':').append(lineNumber);
+    }
+    return target.append(')');
+  }
+
 }
@@ -17,74 +17,83 @@
 package io.opentelemetry.futureapi.events;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static io.opentelemetry.futureapi.events.AttributeUtils.convertAttributeListToMap;
-import static io.opentelemetry.futureapi.events.AttributeUtils.convertStackFrame2StackTraceElement;
-import static io.opentelemetry.futureapi.events.EventConstants.ATTR_ERROR_OBJECT;
 import static io.opentelemetry.futureapi.events.EventConstants.EVENT_ERROR;
 
-import com.google.protobuf.Any;
-import com.google.protobuf.InvalidProtocolBufferException;
-import com.rollbar.notifier.wrapper.RollbarThrowableWrapper;
 import com.rollbar.notifier.wrapper.ThrowableWrapper;
 import io.opentelemetry.proto.events.v1.ErrorData;
 import io.opentelemetry.proto.events.v1.Event;
-import io.opentelemetry.proto.events.v1.ExceptionData;
 import io.opentelemetry.proto.events.v1.StackTrace;
-import io.opentelemetry.proto.events.v1.StackTrace.StackFrame;
-import java.util.Map;
+import java.util.List;
 import java.util.logging.Logger;
 import javax.annotation.Nullable;
 
 /**
- * Converts an OpenTelemetry event containing error info into a Rollbar throwable wrapper.
+ * Converts an OpenTelemetry event containing error info into a Rollbar throwable wrapper. The
+ * wrappers convert their stack frames only when Rollbar first asks for them.
  */
 public class OtelEvent2RollbarThrowableWrapperConverter {
 
   private static final Logger LOGGER =
       Logger.getLogger(OtelEvent2RollbarThrowableWrapperConverter.class.getName());
 
+  @Nullable
+  private final StackFrameInternPool stackFramePool;
+
+  public OtelEvent2RollbarThrowableWrapperConverter() {
+    this(null);
+  }
+
+  /**
+   * Creates a converter taking stack trace elements from the pool, which may be shared with the
+   * translator and other converters.
+   */
+  public OtelEvent2RollbarThrowableWrapperConverter(@Nullable StackFrameInternPool stackFramePool) {
+    this.stackFramePool = stackFramePool;
+  }
+
   @Nullable
   public ThrowableWrapper convert(Event source) {
+    return convert(source, null);
+  }
+
+  /**
+   * Converts an event from a batch, rehydrating stack traces sent as hash-only references from
+   * the batch's table.
+   */
+  @Nullable
+  public ThrowableWrapper convert(Event source, @Nullable StackTraceTable stackTraces) {
+    checkNotNull(source, "source is required");
+    return convert(DecodedEvent.of(source), stackTraces);
+  }
+
+  /**
+   * Converts an event whose decoded error data may be shared with other converters.
+   */
+  @Nullable
+  public ThrowableWrapper convert(DecodedEvent source) {
+    return convert(source, null);
+  }
+
+  @Nullable
+  public ThrowableWrapper convert(DecodedEvent source, @Nullable StackTraceTable stackTraces) {
     checkNotNull(source, "source is required");
     if (!EVENT_ERROR.equals(source.getDescription())) {
       LOGGER.info("converter only supports events of type \"error\"");
       return null;
     }
-    return doConvert(source);
+    return doConvert(source, stackTraces);
   }
 
-  private ThrowableWrapper doConvert(Event source) {
-    Map<String, Object> attributeMap = convertAttributeListToMap(source.getAttributesList());
-    Any any = (Any) attributeMap.get(ATTR_ERROR_OBJECT);
-    if (any == null) {
-      return null;
-    }
-    ErrorData errorData = null;
-    try {
-      errorData = any.unpack(ErrorData.class);
-    } catch (InvalidProtocolBufferException cause) {
-      LOGGER.log(java.util.logging.Level.WARNING, cause.getMessage(), cause);
-    }
+  private ThrowableWrapper doConvert(DecodedEvent source, @Nullable StackTraceTable stackTraces) {
+    ErrorData errorData = source.getErrorData();
     if (errorData == null || errorData.getExceptionsList().isEmpty()) {
       return null;
     }
-    RollbarThrowableWrapper target = null;
+    List<StackTrace> stacks = StackTraceTable.resolveAll(stackTraces, errorData);
+    ThrowableWrapper target = null;
     for (int i = errorData.getExceptionsCount() - 1; i >= 0; i--) {
-      ExceptionData exceptionData = errorData.getExceptions(i);
-      target = new RollbarThrowableWrapper(exceptionData.getType(), exceptionData.getMesssage(),
-          convertStackTrace(exceptionData.getStack()), target);
-    }
-    return target;
-  }
-
-  private StackTraceElement[] convertStackTrace(StackTrace source) {
-    if (source == null || source.getFramesList().isEmpty()) {
-      return null;
-    }
-    StackTraceElement[] target = new StackTraceElement[source.getFramesList().size()];
-    for (int i = 0; i < target.length; i++) {
-      StackFrame frame = source.getFramesList().get(i);
-      target[i] = convertStackFrame2StackTraceElement(frame);
+      target = new LazyThrowableWrapper(
+          errorData.getExceptions(i), stacks.get(i), stackFramePool, target);
     }
     return target;
   }
@@ -16,13 +16,13 @@
 
 package io.opentelemetry.futureapi.events;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static io.opentelemetry.futureapi.events.AttributeUtils.convertAttributeListToMap;
-import static io.opentelemetry.futureapi.events.EventConstants.ATTR_ERROR_OBJECT;
+import static com.google.common.base.Strings.isNullOrEmpty;
 import static io.opentelemetry.futureapi.events.EventConstants.EVENT_ERROR;
 
-import com.google.protobuf.Any;
-import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.opentelemetry.proto.events.v1.ErrorData;
 import io.opentelemetry.proto.events.v1.Event;
 import io.opentelemetry.proto.events.v1.ExceptionData;
@@ -33,51 +33,97 @@ import io.sentry.event.interfaces.ExceptionInterface;
 import io.sentry.event.interfaces.SentryException;
 import io.sentry.event.interfaces.SentryStackTraceElement;
 import io.sentry.event.interfaces.StackTraceInterface;
+import java.util.ArrayDeque;
 import java.util.Date;
 import java.util.Deque;
-import java.util.LinkedList;
-import java.util.Map;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Logger;
 import javax.annotation.Nullable;
 
 /**
- * Converts an OpenTelemetry event containing error info into a Sentry event.
+ * Converts an OpenTelemetry event containing error info into a Sentry event. Converted stack
+ * traces are cached by {@code stack_trace_hash_id} and the package and class names by exception
+ * type, so repeated errors share those parts; Sentry never modifies them once built. Instances
+ * are thread-safe.
  */
 public class OtelEvent2SentryEventConverter {
 
   private static final Logger LOGGER =
       Logger.getLogger(OtelEvent2SentryEventConverter.class.getName());
+  private static final long DEFAULT_CACHE_SIZE = 1024L;
+
+  @Nullable
+  private final Cache<String, StackTraceInterface> stackTraceCache;
+  @Nullable
+  private final Cache<String, TypeName> typeNameCache;
+
+  public OtelEvent2SentryEventConverter() {
+    this(DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * Creates a converter keeping up to the given number of converted stack traces and exception
+   * type names. A size of zero disables both caches.
+   */
+  public OtelEvent2SentryEventConverter(long cacheSize) {
+    checkArgument(cacheSize >= 0L, "cacheSize must not be negative");
+    if (cacheSize > 0L) {
+      this.stackTraceCache = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
+      this.typeNameCache = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
+    } else {
+      this.stackTraceCache = null;
+      this.typeNameCache = null;
+    }
+  }
 
   @Nullable
   public io.sentry.event.Event convert(Event source) {
+    return convert(source, null);
+  }
+
+  /**
+   * Converts an event from a batch, rehydrating stack traces sent as hash-only references from
+   * the batch's table.
+   */
+  @Nullable
+  public io.sentry.event.Event convert(Event source, @Nullable StackTraceTable stackTraces) {
+    checkNotNull(source, "source is required");
+    return convert(DecodedEvent.of(source), stackTraces);
+  }
+
+  /**
+   * Converts an event whose decoded error data may be shared with other converters.
+   */
+  @Nullable
+  public io.sentry.event.Event convert(DecodedEvent source) {
+    return convert(source, null);
+  }
+
+  @Nullable
+  public io.sentry.event.Event convert(DecodedEvent source, @Nullable StackTraceTable stackTraces) {
     checkNotNull(source, "source is required");
     if (!EVENT_ERROR.equals(source.getDescription())) {
       LOGGER.info("converter only supports events of type \"error\"");
       return null;
     }
-    return doConvert(source);
+    return doConvert(source, stackTraces);
   }
 
-  private io.sentry.event.Event doConvert(Event source) {
-    Map<String, Object> attributeMap = convertAttributeListToMap(source.getAttributesList());
-    Any any = (Any) attributeMap.get(ATTR_ERROR_OBJECT);
-    if (any == null) {
-      return null;
-    }
-    ErrorData errorData = null;
-    try {
-      errorData = any.unpack(ErrorData.class);
-    } catch (InvalidProtocolBufferException cause) {
-      LOGGER.log(java.util.logging.Level.WARNING, cause.getMessage(), cause);
-    }
+  private io.sentry.event.Event doConvert(
+      DecodedEvent source, @Nullable StackTraceTable stackTraces) {
+    ErrorData errorData = source.getErrorData();
     if (errorData == null || errorData.getExceptionsList().isEmpty()) {
       return null;
     }
     String message = errorData.getExceptions(0).getMesssage();
-    Deque<SentryException> exceptions = new LinkedList<>();
-    for (ExceptionData exception : errorData.getExceptionsList()) {
-      SentryException sentryException = convertException(exception);
-      exceptions.add(sentryException);
+    Deque<SentryException> exceptions = new ArrayDeque<>(errorData.getExceptionsCount());
+    List<StackTrace> stacks = StackTraceTable.resolveAll(stackTraces, errorData);
+    for (int i = 0; i < errorData.getExceptionsCount(); i++) {
+      ExceptionData exception = errorData.getExceptions(i);
+      exceptions.add(convertException(exception, stacks.get(i),
+          !StackTraceTable.hasCommonFrames(stackTraces, exception.getStack())));
     }
     return new io.sentry.event.EventBuilder()
         .withSdkIntegration("otel")
@@ -88,15 +134,39 @@ public class OtelEvent2SentryEventConverter {
         .build();
   }
 
-  private SentryException convertException(ExceptionData source) {
-    StackTraceInterface stackTraceInterface = convertStackTrace(source.getStack());
-    int pos = source.getType().lastIndexOf('.');
-    String exceptionClassName = source.getType().substring(pos + 1);
-    String exceptionPackageName = source.getType().substring(0, pos);
-    return new SentryException(source.getMesssage(), exceptionClassName, exceptionPackageName,
+  /**
+   * Converts the exception. Stacks restored from common frames are not cached because their
+   * hash only covers the frames that were sent, including stacks sent as a reference to a table
+   * entry with common frames.
+   */
+  private SentryException convertException(
+      ExceptionData source, StackTrace stackTrace, boolean cacheable) {
+    StackTraceInterface stackTraceInterface;
+    if (stackTraceCache == null || !cacheable
+        || isNullOrEmpty(stackTrace.getStackTraceHashId())) {
+      stackTraceInterface = convertStackTrace(stackTrace);
+    } else {
+      stackTraceInterface = get(stackTraceCache, stackTrace.getStackTraceHashId(),
+          () -> convertStackTrace(stackTrace));
+    }
+    TypeName typeName;
+    if (typeNameCache == null) {
+      typeName = new TypeName(source.getType());
+    } else {
+      typeName = get(typeNameCache, source.getType(), () -> new TypeName(source.getType()));
+    }
+    return new SentryException(source.getMesssage(), typeName.className, typeName.packageName,
         stackTraceInterface);
   }
 
+  private static <V> V get(Cache<String, V> cache, String key, Callable<V> loader) {
+    try {
+      return cache.get(key, loader);
+    } catch (ExecutionException cause) {
+      throw new IllegalStateException(cause.getCause());
+    }
+  }
+
   private StackTraceInterface convertStackTrace(StackTrace source) {
     SentryStackTraceElement[] target =
         new SentryStackTraceElement[source.getFramesList().size()];
@@ -114,4 +184,20 @@ public class OtelEvent2SentryEventConverter {
     }
     return new StackTraceInterface(target);
   }
+
+  /**
+   * An exception type split into package and class name.
+   */
+  private static final class TypeName {
+
+    @Nullable
+    private final String packageName;
+    private final String className;
+
+    TypeName(String type) {
+      int pos = type.lastIndexOf('.');
+      this.packageName = pos < 0 ? null : type.substring(0, pos);
+      this.className = type.substring(pos + 1);
+    }
+  }
 }
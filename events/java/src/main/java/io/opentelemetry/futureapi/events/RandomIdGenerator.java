@@ -0,0 +1,48 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates ids by counting up from a random starting point drawn once per sequence.
+ */
+final class RandomIdGenerator implements IdGenerator {
+
+  static final RandomIdGenerator INSTANCE = new RandomIdGenerator();
+
+  @Override
+  public IdSequence newSequence() {
+    return new RandomIdSequence(ThreadLocalRandom.current().nextLong());
+  }
+
+  private RandomIdGenerator() {}
+
+  private static final class RandomIdSequence implements IdSequence {
+
+    private long next;
+
+    RandomIdSequence(long start) {
+      this.next = start;
+    }
+
+    @Override
+    public String nextId() {
+      return HexEncoding.encode(next++);
+    }
+  }
+}
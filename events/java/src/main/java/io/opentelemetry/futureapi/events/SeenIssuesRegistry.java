@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the {@code issue_hash_id} values whose full exception details have been sent so
+ * that repeat occurrences can be reported by {@code issue_hash_id} alone. The registry is
+ * bounded in size, forgets issues not seen for a while and asks for the full details again once
+ * per resend interval. The compact occurrences are meant for a collector holding the details;
+ * the in-process converters cannot convert them.
+ */
+public final class SeenIssuesRegistry {
+
+  private final Cache<String, AtomicLong> lastSentByIssue;
+  private final Ticker ticker;
+  private final long resendIntervalNanos;
+  private final LongAdder detailedCount = new LongAdder();
+  private final LongAdder compactCount = new LongAdder();
+
+  /**
+   * Creates a registry.
+   *
+   * @param maximumSize the maximum number of issues remembered, least recently seen are evicted
+   * @param expireAfter how long an issue is remembered after its last occurrence
+   * @param resendInterval how often the full details of a known issue are sent again
+   */
+  public SeenIssuesRegistry(long maximumSize, Duration expireAfter, Duration resendInterval) {
+    this(maximumSize, expireAfter, resendInterval, Ticker.systemTicker());
+  }
+
+  SeenIssuesRegistry(
+      long maximumSize, Duration expireAfter, Duration resendInterval, Ticker ticker) {
+    checkArgument(maximumSize > 0, "maximumSize must be positive");
+    checkNotNull(expireAfter, "expireAfter is required");
+    checkNotNull(resendInterval, "resendInterval is required");
+    this.ticker = checkNotNull(ticker, "ticker is required");
+    this.resendIntervalNanos = resendInterval.toNanos();
+    this.lastSentByIssue = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterAccess(expireAfter.toNanos(), TimeUnit.NANOSECONDS)
+        .ticker(ticker)
+        .build();
+  }
+
+  /**
+   * Records an occurrence of the issue and returns whether its full details should be sent,
+   * which is the case for the first occurrence and once the resend interval has elapsed.
+   */
+  public boolean shouldSendDetails(String issueHashId) {
+    long now = ticker.read();
+    AtomicLong lastSent = lastSentByIssue.getIfPresent(issueHashId);
+    if (lastSent == null) {
+      lastSent = lastSentByIssue.asMap().putIfAbsent(issueHashId, new AtomicLong(now));
+      if (lastSent == null) {
+        detailedCount.increment();
+        return true;
+      }
+    }
+    long previous = lastSent.get();
+    if (now - previous >= resendIntervalNanos && lastSent.compareAndSet(previous, now)) {
+      detailedCount.increment();
+      return true;
+    }
+    compactCount.increment();
+    return false;
+  }
+
+  /**
+   * Returns the approximate number of issues currently remembered.
+   */
+  public long size() {
+    return lastSentByIssue.size();
+  }
+
+  /**
+   * Returns how many occurrences were sent with full details.
+   */
+  public long getDetailedCount() {
+    return detailedCount.sum();
+  }
+
+  /**
+   * Returns how many occurrences were reduced to their {@code issue_hash_id}.
+   */
+  public long getCompactCount() {
+    return compactCount.sum();
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import io.opentelemetry.proto.events.v1.StackTrace.StackFrame;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shares {@link StackFrame} and {@link StackTraceElement} instances for code locations seen
+ * before. A service only has a finite set of frames, so after warm-up translation and
+ * conversion reuse immutable instances instead of building new ones for every frame. Each
+ * direction is a separate size-bounded pool keyed by class, method, file and line. Instances are
+ * thread-safe.
+ */
+public final class StackFrameInternPool {
+
+  /**
+   * Rough per-entry cost of the cache entry, the key, the value and their string headers.
+   */
+  private static final long ENTRY_OVERHEAD_BYTES = 256L;
+
+  private final Cache<StackTraceElement, StackFrame> frames;
+  private final Cache<StackFrame, StackTraceElement> elements;
+  private final AtomicLong framesFootprint = new AtomicLong();
+  private final AtomicLong elementsFootprint = new AtomicLong();
+
+  /**
+   * Creates a pool.
+   *
+   * @param maximumSize the maximum number of frames kept in each direction, least recently used
+   *     are evicted
+   */
+  public StackFrameInternPool(long maximumSize) {
+    checkArgument(maximumSize > 0, "maximumSize must be positive");
+    this.frames = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .recordStats()
+        .<StackTraceElement, StackFrame>removalListener(
+            removed -> framesFootprint.addAndGet(-estimateFootprint(removed.getValue())))
+        .build();
+    this.elements = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .recordStats()
+        .<StackFrame, StackTraceElement>removalListener(
+            removed -> elementsFootprint.addAndGet(-estimateFootprint(removed.getKey())))
+        .build();
+  }
+
+  /**
+   * Returns the shared frame for the element, converting it on first use.
+   */
+  public StackFrame toStackFrame(StackTraceElement source) {
+    StackFrame frame = frames.getIfPresent(source);
+    if (frame == null) {
+      frame = AttributeUtils.convertStackTraceElement2StackFrame(source);
+      StackFrame existing = frames.asMap().putIfAbsent(source, frame);
+      if (existing == null) {
+        framesFootprint.addAndGet(estimateFootprint(frame));
+      } else {
+        frame = existing;
+      }
+    }
+    return frame;
+  }
+
+  /**
+   * Returns the shared element for the frame, converting it on first use.
+   */
+  public StackTraceElement toStackTraceElement(StackFrame source) {
+    StackTraceElement element = elements.getIfPresent(source);
+    if (element == null) {
+      element = AttributeUtils.convertStackFrame2StackTraceElement(source);
+      StackTraceElement existing = elements.asMap().putIfAbsent(source, element);
+      if (existing == null) {
+        elementsFootprint.addAndGet(estimateFootprint(source));
+      } else {
+        element = existing;
+      }
+    }
+    return element;
+  }
+
+  /**
+   * Returns hit, miss and eviction counts of the element to frame pool.
+   */
+  public CacheStats getStackFrameStats() {
+    return frames.stats();
+  }
+
+  /**
+   * Returns hit, miss and eviction counts of the frame to element pool.
+   */
+  public CacheStats getStackTraceElementStats() {
+    return elements.stats();
+  }
+
+  /**
+   * Returns the approximate number of frames held in each direction combined.
+   */
+  public long size() {
+    return frames.size() + elements.size();
+  }
+
+  /**
+   * Returns an estimate in bytes of the memory held by both pools, counting the strings of each
+   * entry plus a fixed per-entry overhead.
+   */
+  public long getEstimatedFootprintBytes() {
+    return framesFootprint.get() + elementsFootprint.get();
+  }
+
+  private static long estimateFootprint(StackFrame frame) {
+    return ENTRY_OVERHEAD_BYTES + (long) Character.BYTES
+        * (frame.getLoadModule().length() + frame.getFunctionName().length()
+            + frame.getFileName().length());
+  }
+}
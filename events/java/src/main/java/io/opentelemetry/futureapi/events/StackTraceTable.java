@@ -0,0 +1,156 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+
+import io.opentelemetry.proto.events.v1.ErrorData;
+import io.opentelemetry.proto.events.v1.Event;
+import io.opentelemetry.proto.events.v1.ExceptionData;
+import io.opentelemetry.proto.events.v1.StackTrace;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Batch-scoped table of full stack traces by {@code stack_trace_hash_id}, used to rehydrate the
+ * hash-only references written by {@link EventBatchEncoder}. Registering is not thread-safe.
+ * Once registration has finished, resolving only reads the table, so a complete table may be
+ * shared between threads it is safely published to, for example by handing it to tasks through
+ * an {@link java.util.concurrent.Executor}.
+ */
+public final class StackTraceTable {
+
+  private final Map<String, StackTrace> stackTraces = new HashMap<>();
+
+  /**
+   * Creates a table holding every full stack trace in the batch.
+   */
+  public static StackTraceTable fromEvents(Collection<Event> events) {
+    StackTraceTable table = new StackTraceTable();
+    for (Event event : events) {
+      ErrorData errorData = DecodedEvent.of(event).getErrorData();
+      if (errorData != null) {
+        table.registerAll(errorData);
+      }
+    }
+    return table;
+  }
+
+  /**
+   * Creates a table holding every full stack trace in the batch of decoded events.
+   */
+  public static StackTraceTable fromDecodedEvents(Collection<DecodedEvent> events) {
+    StackTraceTable table = new StackTraceTable();
+    for (DecodedEvent event : events) {
+      ErrorData errorData = event.getErrorData();
+      if (errorData != null) {
+        table.registerAll(errorData);
+      }
+    }
+    return table;
+  }
+
+  /**
+   * Registers the full stack traces of every exception in the error.
+   */
+  public void registerAll(ErrorData errorData) {
+    for (ExceptionData exception : errorData.getExceptionsList()) {
+      register(exception.getStack());
+    }
+  }
+
+  /**
+   * Registers the stack trace if it has frames and a hash id. The first registration of a hash
+   * id wins.
+   */
+  public void register(StackTrace stackTrace) {
+    if (!isReference(stackTrace) && !isNullOrEmpty(stackTrace.getStackTraceHashId())) {
+      stackTraces.putIfAbsent(stackTrace.getStackTraceHashId(), stackTrace);
+    }
+  }
+
+  /**
+   * Returns the full stack trace for a hash-only reference, or the source itself if it is not a
+   * reference or the hash id is unknown. The reference's own {@code dropped_frames_count} is
+   * kept.
+   */
+  public StackTrace resolve(StackTrace stackTrace) {
+    if (!isReference(stackTrace)) {
+      return stackTrace;
+    }
+    StackTrace full = stackTraces.get(stackTrace.getStackTraceHashId());
+    if (full == null) {
+      return stackTrace;
+    }
+    if (full.getDroppedFramesCount() == stackTrace.getDroppedFramesCount()) {
+      return full;
+    }
+    return full.toBuilder().setDroppedFramesCount(stackTrace.getDroppedFramesCount()).build();
+  }
+
+  public int size() {
+    return stackTraces.size();
+  }
+
+  static StackTrace resolve(@Nullable StackTraceTable table, StackTrace stackTrace) {
+    return table == null ? stackTrace : table.resolve(stackTrace);
+  }
+
+  /**
+   * Returns whether the stack trace, once resolved from the table, leaves frames to be copied
+   * from the enclosing exception. The {@code stack_trace_hash_id} of such a stack only covers its
+   * own frames, so it does not identify the stack restored by {@link #resolveAll}.
+   */
+  static boolean hasCommonFrames(@Nullable StackTraceTable table, StackTrace stackTrace) {
+    return resolve(table, stackTrace).getCommonFramesCount() > 0;
+  }
+
+  /**
+   * Returns the full stack trace of every exception in the error, in order. References are
+   * resolved from the table, and frames elided as common with the previous exception are copied
+   * back from its full stack.
+   */
+  static List<StackTrace> resolveAll(@Nullable StackTraceTable table, ErrorData errorData) {
+    List<StackTrace> resolved = new ArrayList<>(errorData.getExceptionsCount());
+    StackTrace enclosing = null;
+    for (ExceptionData exception : errorData.getExceptionsList()) {
+      StackTrace stackTrace = resolve(table, exception.getStack());
+      if (stackTrace.getCommonFramesCount() > 0 && enclosing != null) {
+        stackTrace = restoreCommonFrames(stackTrace, enclosing);
+      }
+      resolved.add(stackTrace);
+      enclosing = stackTrace;
+    }
+    return resolved;
+  }
+
+  private static StackTrace restoreCommonFrames(StackTrace stackTrace, StackTrace enclosing) {
+    int from = Math.max(0, enclosing.getFramesCount() - stackTrace.getCommonFramesCount());
+    return stackTrace.toBuilder()
+        .addAllFrames(enclosing.getFramesList().subList(from, enclosing.getFramesCount()))
+        .clearCommonFramesCount()
+        .build();
+  }
+
+  static boolean isReference(StackTrace stackTrace) {
+    return stackTrace.getFramesCount() == 0 && !isNullOrEmpty(stackTrace.getStackTraceHashId());
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Immutable snapshot of everything {@link ThrowableTranslator} reads from a {@link Throwable}:
+ * type, messages, stack trace and cause chain, plus the time of capture. Taking the snapshot
+ * only copies references and the stack array, so it is cheap enough for the thread that threw,
+ * while the expensive translation can run later on another thread. Later changes to the
+ * throwable, such as {@link Throwable#setStackTrace} or re-initializing its cause, do not affect
+ * the snapshot.
+ */
+public final class ThrowableCapture {
+
+  private final String type;
+  @Nullable
+  private final String message;
+  @Nullable
+  private final String localizedMessage;
+  private final StackTraceElement[] stackTrace;
+  private final int droppedFramesCount;
+  @Nullable
+  private final ThrowableCapture cause;
+  private final long timeUnixnano;
+
+  private ThrowableCapture(Throwable source, @Nullable ThrowableCapture cause, long timeUnixnano) {
+    this.type = source.getClass().getName();
+    this.message = source.getMessage();
+    this.localizedMessage = source.getLocalizedMessage();
+    this.stackTrace = source.getStackTrace();
+    this.droppedFramesCount = 0;
+    this.cause = cause;
+    this.timeUnixnano = timeUnixnano;
+  }
+
+  private ThrowableCapture(String type, @Nullable String message, CallSiteStackCapture stack) {
+    this.type = type;
+    this.message = message;
+    this.localizedMessage = message;
+    this.stackTrace = stack.getFrames();
+    this.droppedFramesCount = stack.getDroppedFramesCount();
+    this.cause = null;
+    this.timeUnixnano = ThrowableTranslator.currentTimeUnixnano();
+  }
+
+  /**
+   * Captures the throwable and its causes at the current time. A cause appearing twice in the
+   * chain ends it.
+   */
+  public static ThrowableCapture of(Throwable source) {
+    checkNotNull(source, "source is required");
+    long timeUnixnano = ThrowableTranslator.currentTimeUnixnano();
+    List<Throwable> chain = extractCauseChain(source);
+    ThrowableCapture capture = null;
+    for (int i = chain.size() - 1; i >= 0; i--) {
+      capture = new ThrowableCapture(chain.get(i), capture, timeUnixnano);
+    }
+    return capture;
+  }
+
+  /**
+   * Captures the stack of the calling thread as an error of the given type, without creating a
+   * throwable. At most {@code maxFrames} frames starting at the caller of this method are kept;
+   * the rest are only counted. On Java 9 and later the stack is walked lazily so frames past the
+   * limit are never materialized, earlier runtimes fall back to {@link
+   * Throwable#getStackTrace()}.
+   *
+   * @param type the error type reported, usually a class name
+   * @param message the error message
+   * @param maxFrames the maximum number of frames kept
+   */
+  public static ThrowableCapture ofCallSite(String type, @Nullable String message, int maxFrames) {
+    checkNotNull(type, "type is required");
+    checkArgument(maxFrames >= 0, "maxFrames must not be negative");
+    return new ThrowableCapture(type, message, CallSiteStackCapture.capture(1, maxFrames));
+  }
+
+  /**
+   * Returns the fully qualified class name of the throwable.
+   */
+  public String getType() {
+    return type;
+  }
+
+  @Nullable
+  public String getMessage() {
+    return message;
+  }
+
+  @Nullable
+  public String getLocalizedMessage() {
+    return localizedMessage;
+  }
+
+  /**
+   * Returns a copy of the captured stack trace.
+   */
+  public StackTraceElement[] getStackTrace() {
+    return stackTrace.clone();
+  }
+
+  /**
+   * Returns the captured stack trace without copying it; callers must not modify it.
+   */
+  StackTraceElement[] stackTrace() {
+    return stackTrace;
+  }
+
+  /**
+   * Returns the number of frames beyond {@link #getStackTrace()} that were counted but not
+   * captured, always zero for captured throwables.
+   */
+  public int getDroppedFramesCount() {
+    return droppedFramesCount;
+  }
+
+  @Nullable
+  public ThrowableCapture getCause() {
+    return cause;
+  }
+
+  /**
+   * Returns when the capture was taken, in nanoseconds since the epoch.
+   */
+  public long getTimeUnixnano() {
+    return timeUnixnano;
+  }
+
+  private static List<Throwable> extractCauseChain(Throwable throwable) {
+    List<Throwable> chain = new ArrayList<>(4);
+    Throwable node = throwable;
+    while (node != null && !containsInstance(chain, node)) {
+      chain.add(node);
+      node = extractCause(node);
+    }
+    return chain;
+  }
+
+  private static boolean containsInstance(List<Throwable> chain, Throwable throwable) {
+    for (Throwable node : chain) {
+      if (node == throwable) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static Throwable extractCause(Throwable throwable) {
+    if (throwable instanceof InvocationTargetException) {
+      return ((InvocationTargetException) throwable).getTargetException();
+    } else {
+      Throwable cause = throwable.getCause();
+      return cause == throwable ? null : cause;
+    }
+  }
+}
@@ -16,34 +16,33 @@
 
 package io.opentelemetry.futureapi.events;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
-import static com.google.common.base.Strings.padStart;
 import static io.opentelemetry.futureapi.events.AttributeUtils.convertStackTraceElement2StackFrame;
 import static io.opentelemetry.futureapi.events.EventConstants.ATTR_ERROR_MESSAGE;
-import static io.opentelemetry.futureapi.events.EventConstants.ATTR_ERROR_OBJECT;
 import static io.opentelemetry.futureapi.events.EventConstants.EVENT_ERROR;
-import static java.nio.charset.StandardCharsets.UTF_8;
 
-import com.google.protobuf.Any;
-import com.google.protobuf.GeneratedMessageV3;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.protobuf.CodedOutputStream;
 import io.opentelemetry.proto.common.v1.AttributeKeyValue;
-import io.opentelemetry.proto.common.v1.AttributeKeyValue.ValueType;
+import io.opentelemetry.futureapi.events.FingerprintStrategy.Fingerprinter;
+import io.opentelemetry.futureapi.events.IdGenerator.IdSequence;
 import io.opentelemetry.proto.events.v1.ErrorData;
 import io.opentelemetry.proto.events.v1.ExceptionData;
 import io.opentelemetry.proto.events.v1.StackTrace;
-import java.lang.reflect.InvocationTargetException;
+import java.io.IOException;
 import java.math.BigDecimal;
-import java.math.BigInteger;
-import java.nio.ByteBuffer;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import io.opentelemetry.proto.events.v1.Event;
-import java.util.UUID;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import javax.annotation.Nullable;
 
 /**
  * Converts a {@link Throwable} with potentially nested throwables into an OpenTelementry {@code
@@ -52,134 +51,376 @@ import java.util.logging.Logger;
 public class ThrowableTranslator {
 
   private static final int DEFAULT_MAX_STACK_TRACE_LENGTH = 50;
-  private static final Logger LOGGER = Logger.getLogger(ThrowableTranslator.class.getName());
+  private static final long DEFAULT_STACK_TRACE_CACHE_SIZE = 1024L;
 
-  private int maxStackTraceLength;
+  private final int maxStackTraceLength;
+  private final FingerprintStrategy fingerprintStrategy;
+  private final IdGenerator idGenerator;
+  @Nullable
+  private final SeenIssuesRegistry seenIssuesRegistry;
+  @Nullable
+  private final Cache<StackTraceKey, StackTrace> stackTraceCache;
+  @Nullable
+  private final StackFrameInternPool stackFramePool;
+  private final boolean elideCommonFrames;
+  private final FrameSelectionPolicy frameSelectionPolicy;
+  @Nullable
+  private final ErrorSampler errorSampler;
 
   public ThrowableTranslator() {
     this(DEFAULT_MAX_STACK_TRACE_LENGTH);
   }
 
   public ThrowableTranslator(int maxStackTraceLength) {
-    this.maxStackTraceLength = maxStackTraceLength;
+    this(newBuilder().setMaxStackTraceLength(maxStackTraceLength));
   }
 
+  private ThrowableTranslator(Builder builder) {
+    this.maxStackTraceLength = builder.maxStackTraceLength;
+    this.fingerprintStrategy = builder.fingerprintStrategy;
+    this.idGenerator = builder.idGenerator;
+    this.seenIssuesRegistry = builder.seenIssuesRegistry;
+    this.stackFramePool = builder.stackFramePool;
+    this.elideCommonFrames = builder.elideCommonFrames;
+    this.frameSelectionPolicy = builder.frameSelectionPolicy;
+    this.errorSampler = builder.errorSampler;
+    if (builder.stackTraceCacheSize > 0) {
+      this.stackTraceCache = CacheBuilder.newBuilder()
+          .maximumSize(builder.stackTraceCacheSize)
+          .recordStats()
+          .build();
+    } else {
+      this.stackTraceCache = null;
+    }
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * Returns hit, miss and eviction counts of the stack trace cache. All counts are zero if the
+   * cache is disabled.
+   */
+  public CacheStats getStackTraceCacheStats() {
+    if (stackTraceCache == null) {
+      return new CacheStats(0L, 0L, 0L, 0L, 0L, 0L);
+    }
+    return stackTraceCache.stats();
+  }
+
+  /**
+   * Translates the throwable into an {@code error} event. Returns {@code null} if the occurrence
+   * was sampled out by the configured {@link ErrorSampler}.
+   */
+  @Nullable
   public Event translateThrowable(Throwable source, Map<String, Object> parameters) {
+    DecodedEvent event = translate(source, parameters);
+    return event == null ? null : event.getEvent();
+  }
+
+  /**
+   * Translates the throwable keeping the live {@link ErrorData}. Converters given the result use
+   * it directly; the {@code error.object} attribute is only serialized once {@link
+   * DecodedEvent#getEvent()} is called. Returns {@code null} if the occurrence was sampled out.
+   */
+  @Nullable
+  public DecodedEvent translate(Throwable source, Map<String, Object> parameters) {
     checkNotNull(source, "source is required");
+    return translate(ThrowableCapture.of(source), parameters);
+  }
+
+  /**
+   * Translates a throwable captured earlier, possibly on another thread. The event time is the
+   * time of capture. Returns {@code null} if the occurrence was sampled out.
+   */
+  @Nullable
+  public DecodedEvent translate(ThrowableCapture source, Map<String, Object> parameters) {
+    checkNotNull(source, "source is required");
+    ErrorData errorData = constructErrorData(source, parameters);
+    if (errorData == null) {
+      return null;
+    }
     Event.Builder builder = Event.newBuilder();
-    Instant ts = Instant.now();
     builder
-        .setTimeUnixnano(ts.getEpochSecond() * 1000000000L + ts.getNano())
+        .setTimeUnixnano(source.getTimeUnixnano())
         .setDescription(EVENT_ERROR)
         .addAttributes(buildStringAttribute(
-            ATTR_ERROR_MESSAGE, constructMessage(source)))
-        .addAttributes(buildAnyAttribute(
-            ATTR_ERROR_OBJECT, constructErrorData(source, parameters)));
-    return builder.build();
+            ATTR_ERROR_MESSAGE, constructMessage(source)));
+    return DecodedEvent.ofErrorData(builder.build(), errorData);
+  }
+
+  /**
+   * Encodes the event {@link #translateThrowable} would return straight into the output, byte
+   * for byte the same as serializing it but without building the intermediate messages. Returns
+   * the number of bytes written, or {@code -1} if the occurrence was sampled out. The output is
+   * not flushed.
+   *
+   * @throws IOException if the output runs out of space or its stream fails
+   */
+  public int writeEvent(Throwable source, Map<String, Object> parameters,
+      CodedOutputStream output) throws IOException {
+    checkNotNull(source, "source is required");
+    return writeEvent(ThrowableCapture.of(source), parameters, output);
+  }
+
+  /**
+   * Encodes the event for a throwable captured earlier. See {@link #writeEvent(Throwable, Map,
+   * CodedOutputStream)}.
+   */
+  public int writeEvent(ThrowableCapture source, Map<String, Object> parameters,
+      CodedOutputStream output) throws IOException {
+    return writeEvent(source, parameters, output, false);
   }
 
-  private String constructMessage(Throwable throwable) {
-    String message = throwable.getLocalizedMessage();
+  /**
+   * Encodes the event preceded by its length as a varint, as read back by {@link
+   * EventReader#readDelimited}. The returned count includes the length prefix.
+   */
+  public int writeDelimitedEvent(ThrowableCapture source, Map<String, Object> parameters,
+      CodedOutputStream output) throws IOException {
+    return writeEvent(source, parameters, output, true);
+  }
+
+  static long currentTimeUnixnano() {
+    Instant ts = Instant.now();
+    return ts.getEpochSecond() * 1000000000L + ts.getNano();
+  }
+
+  private String constructMessage(ThrowableCapture capture) {
+    String message = capture.getLocalizedMessage();
     if (isNullOrEmpty(message)) {
-      message = throwable.getClass().getName();
+      message = capture.getType();
     }
     return message;
   }
 
-  private ErrorData constructErrorData(Throwable throwable, Map<String, Object> arguments) {
-    ErrorData.Builder builder = ErrorData.newBuilder();
-    MessageDigest hash = newMessageDigest();
-    MessageDigest issue = newMessageDigest();
-    String id = generateId();
-    ExceptionData.Builder exception = constructException(throwable, id, hash, issue);
-    Throwable nextNode = extractCause(throwable);
-    while (null != nextNode) {
-      final Throwable currentNode = nextNode;
-      id = generateId();
-      exception.setCause(id);
-      builder.addExceptions(exception.build());
-      exception = constructException(currentNode, id, hash, issue);
-      nextNode = extractCause(currentNode);
-      if (currentNode.equals(nextNode)) {
-        nextNode = null;
+  private int writeEvent(ThrowableCapture source, Map<String, Object> parameters,
+      CodedOutputStream output, boolean delimited) throws IOException {
+    checkNotNull(source, "source is required");
+    checkNotNull(output, "output is required");
+    ErrorHeader header = constructErrorHeader(source, parameters);
+    if (header == null) {
+      return -1;
+    }
+    EventWireWriter writer = new EventWireWriter(source.getTimeUnixnano(),
+        constructMessage(source), header.hashId, header.issueHashId, header.sampledOutCount,
+        header.arguments);
+    if (header.sendDetails) {
+      IdSequence ids = idGenerator.newSequence();
+      String id = ids.nextId();
+      ThrowableCapture enclosing = null;
+      StackTrace enclosingStack = null;
+      for (ThrowableCapture node = source; node != null; node = node.getCause()) {
+        StackTrace stack = resolveStackTrace(node, enclosing, enclosingStack);
+        String causeId = node.getCause() != null ? ids.nextId() : null;
+        writer.addException(id, node.getMessage(), node.getType(), causeId, stack);
+        enclosing = node;
+        enclosingStack = stack;
+        id = causeId;
       }
     }
-    builder.addExceptions(exception.build());
-    if (arguments != null) {
-      addArguments(builder, hash, arguments);
+    return writer.write(output, delimited);
+  }
+
+  @Nullable
+  private ErrorData constructErrorData(ThrowableCapture capture, Map<String, Object> arguments) {
+    ErrorHeader header = constructErrorHeader(capture, arguments);
+    if (header == null) {
+      return null;
+    }
+    ErrorData.Builder builder = ErrorData.newBuilder();
+    builder.addAllArguments(header.arguments);
+    if (header.sampledOutCount > 0L) {
+      builder.setSampledOutCount(header.sampledOutCount);
+    }
+    builder.setHashId(header.hashId);
+    builder.setIssueHashId(header.issueHashId);
+    if (header.sendDetails) {
+      addExceptions(builder, capture);
     }
-    builder.setHashId(hashToString(hash));
-    builder.setIssueHashId(hashToString(issue));
     return builder.build();
   }
 
-  private ExceptionData.Builder constructException(
-      Throwable throwable, String id, MessageDigest hash, MessageDigest issue) {
-    calculateInstanceHash(throwable, hash);
-    calculateIssueHash(throwable, issue);
+  /**
+   * Computes the hashes, applies the sampler and the seen issues registry and converts the
+   * arguments. Returns {@code null} if the occurrence was sampled out.
+   */
+  @Nullable
+  private ErrorHeader constructErrorHeader(
+      ThrowableCapture capture, Map<String, Object> arguments) {
+    Fingerprinter hash = fingerprintStrategy.newFingerprinter();
+    Fingerprinter issue = fingerprintStrategy.newFingerprinter();
+    for (ThrowableCapture node = capture; node != null; node = node.getCause()) {
+      calculateInstanceHash(node, hash);
+      calculateIssueHash(node, issue);
+    }
+    String issueHashId = issue.hash();
+    long sampledOutCount = 0L;
+    if (errorSampler != null) {
+      sampledOutCount = errorSampler.sample(issueHashId);
+      if (sampledOutCount == ErrorSampler.SAMPLED_OUT) {
+        return null;
+      }
+    }
+    List<AttributeKeyValue> attributes = arguments == null
+        ? Collections.emptyList() : constructArguments(hash, arguments);
+    boolean sendDetails =
+        seenIssuesRegistry == null || seenIssuesRegistry.shouldSendDetails(issueHashId);
+    return new ErrorHeader(
+        hash.hash(), issueHashId, Math.max(sampledOutCount, 0L), attributes, sendDetails);
+  }
+
+  private void addExceptions(ErrorData.Builder builder, ThrowableCapture capture) {
+    IdSequence ids = idGenerator.newSequence();
+    String id = ids.nextId();
+    ThrowableCapture enclosing = null;
+    StackTrace enclosingStack = null;
+    for (ThrowableCapture node = capture; node != null; node = node.getCause()) {
+      ExceptionData.Builder exception = constructException(node, enclosing, enclosingStack, id);
+      enclosing = node;
+      enclosingStack = exception.getStack();
+      if (node.getCause() != null) {
+        id = ids.nextId();
+        exception.setCause(id);
+      }
+      builder.addExceptions(exception);
+    }
+  }
+
+  private ExceptionData.Builder constructException(ThrowableCapture capture,
+      @Nullable ThrowableCapture enclosing, @Nullable StackTrace enclosingStack, String id) {
     ExceptionData.Builder builder = ExceptionData.newBuilder();
     builder.setId(id);
-    if (!isNullOrEmpty(throwable.getMessage())) {
-      builder.setMesssage(throwable.getMessage());
+    if (!isNullOrEmpty(capture.getMessage())) {
+      builder.setMesssage(capture.getMessage());
     }
-    builder.setType(throwable.getClass().getName());
-    builder.setStack(constructStackTrace(throwable.getStackTrace()));
+    builder.setType(capture.getType());
+    builder.setStack(resolveStackTrace(capture, enclosing, enclosingStack));
     return builder;
   }
 
-  private StackTrace constructStackTrace(StackTraceElement[] elements) {
-    StackTrace.Builder builder = StackTrace.newBuilder();
-    MessageDigest hash = newMessageDigest();
-    if (elements.length > maxStackTraceLength) {
-      for (int i = 0; i < maxStackTraceLength; i++) {
-        builder.addFrames(convertStackTraceElement2StackFrame(elements[i]));
-        hash.update(elements[i].toString().getBytes(UTF_8));
-      }
-      builder.setDroppedFramesCount(elements.length - maxStackTraceLength);
-    } else {
-      for (int i = 0; i < elements.length; i++) {
-        builder.addFrames(convertStackTraceElement2StackFrame(elements[i]));
-        hash.update(elements[i].toString().getBytes(UTF_8));
+  /**
+   * Returns the stack trace recorded for the exception, eliding the frames it shares with the
+   * enclosing exception if enabled.
+   */
+  private StackTrace resolveStackTrace(ThrowableCapture capture,
+      @Nullable ThrowableCapture enclosing, @Nullable StackTrace enclosingStack) {
+    StackTraceElement[] elements = capture.stackTrace();
+    StackTrace stack = null;
+    int commonFrames = countCommonFrames(capture, enclosing, enclosingStack);
+    if (commonFrames > 0) {
+      stack = lookupStackTrace(
+          Arrays.copyOf(elements, elements.length - commonFrames), 0, commonFrames);
+      if (stack.getDroppedFramesCount() > 0) {
+        stack = null;
       }
     }
-    builder.setStackTraceHashId(hashToString(hash));
-    return builder.build();
+    if (stack == null) {
+      stack = lookupStackTrace(elements, capture.getDroppedFramesCount(), 0);
+    }
+    return stack;
   }
 
-  private static String generateId() {
-    return UUID.randomUUID().toString();
+  /**
+   * Returns how many frames at the bottom of the stack can be left out because the enclosing
+   * exception's stack ends with the same frames. Frames are only elided if both stacks are
+   * recorded without dropping any, so the full stack can always be rebuilt; the caller falls
+   * back to the full stack if the remaining frames still have to be dropped.
+   */
+  private int countCommonFrames(ThrowableCapture capture,
+      @Nullable ThrowableCapture enclosing, @Nullable StackTrace enclosingStack) {
+    if (!elideCommonFrames || enclosing == null || capture.getDroppedFramesCount() > 0
+        || enclosingStack.getDroppedFramesCount() > 0) {
+      return 0;
+    }
+    StackTraceElement[] elements = capture.stackTrace();
+    StackTraceElement[] enclosingElements = enclosing.stackTrace();
+    int m = elements.length - 1;
+    int n = enclosingElements.length - 1;
+    while (m >= 0 && n >= 0 && elements[m].equals(enclosingElements[n])) {
+      m--;
+      n--;
+    }
+    return elements.length - 1 - m;
+  }
+
+  private StackTrace lookupStackTrace(
+      StackTraceElement[] elements, int uncapturedFrames, int commonFrames) {
+    if (stackTraceCache == null) {
+      return constructStackTrace(elements, uncapturedFrames, commonFrames);
+    }
+    StackTraceKey key = new StackTraceKey(elements, uncapturedFrames, commonFrames);
+    StackTrace stackTrace = stackTraceCache.getIfPresent(key);
+    if (stackTrace == null) {
+      stackTrace = constructStackTrace(elements, uncapturedFrames, commonFrames);
+      stackTraceCache.put(key, stackTrace);
+    }
+    return stackTrace;
+  }
+
+  /**
+   * Converts the frames chosen by the frame selection policy; the others are never converted or
+   * hashed. Frames not selected and frames that were never captured, as when walking the current
+   * thread stopped at its limit, are counted as dropped. Common frames elided against the
+   * enclosing stack are recorded and included in the hash.
+   */
+  private StackTrace constructStackTrace(
+      StackTraceElement[] elements, int uncapturedFrames, int commonFrames) {
+    StackTrace.Builder builder = StackTrace.newBuilder();
+    Fingerprinter hash = fingerprintStrategy.newFingerprinter();
+    int[] selected = frameSelectionPolicy.select(elements, maxStackTraceLength);
+    for (int index : selected) {
+      builder.addFrames(convertStackTraceElement2StackFrame(elements[index], stackFramePool));
+      hash.putStackTraceElement(elements[index]);
+    }
+    int droppedFrames = elements.length - selected.length + uncapturedFrames;
+    if (droppedFrames > 0) {
+      builder.setDroppedFramesCount(droppedFrames);
+    }
+    if (commonFrames > 0) {
+      builder.setCommonFramesCount(commonFrames);
+      hash.putLong(commonFrames);
+    }
+    builder.setStackTraceHashId(hash.hash());
+    return builder.build();
   }
 
-  private static void addArguments(
-      ErrorData.Builder builder, MessageDigest hash, Map<String, Object> arguments) {
+  /**
+   * Feeds the non-null arguments into the hash and returns them as attributes. Package-private
+   * for {@code ArgumentHashingBenchmark}.
+   */
+  static List<AttributeKeyValue> constructArguments(
+      Fingerprinter hash, Map<String, Object> arguments) {
+    List<AttributeKeyValue> attributes = new ArrayList<>(arguments.size());
     for (Map.Entry<String, Object> entry : arguments.entrySet()) {
-      if (entry.getValue() == null) {
+      Object argument = entry.getValue();
+      if (argument == null) {
         continue;
       }
-      hash.update(entry.getKey().getBytes(UTF_8));
-      if (entry.getValue() instanceof Number) {
-        Number number = (Number) entry.getValue();
+      hash.putString(entry.getKey());
+      if (argument instanceof Number) {
+        Number number = (Number) argument;
         if (number instanceof Double || number instanceof Float || number instanceof BigDecimal) {
-          builder.addArguments(buildDoubleAttribute(entry.getKey(), number.doubleValue()));
-          ByteBuffer buffer = ByteBuffer.allocate(Double.BYTES);
-          buffer.putDouble(number.doubleValue());
-          hash.update(buffer);
+          double value = number.doubleValue();
+          attributes.add(buildDoubleAttribute(entry.getKey(), value));
+          hash.putDouble(value);
         } else {
-          builder.addArguments(buildIntAttribute(entry.getKey(), number.longValue()));
-          ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
-          buffer.putLong(number.longValue());
-          hash.update(buffer);
+          long value = number.longValue();
+          attributes.add(buildIntAttribute(entry.getKey(), value));
+          hash.putLong(value);
         }
-      } else if (entry.getValue() instanceof Boolean) {
-        Boolean value = (Boolean) entry.getValue();
-        builder.addArguments(buildBoolAttribute(entry.getKey(), value.booleanValue()));
-        hash.update((byte) (value.booleanValue() ? 1 : 0));
+      } else if (argument instanceof Boolean) {
+        Boolean value = (Boolean) argument;
+        attributes.add(buildBoolAttribute(entry.getKey(), value.booleanValue()));
+        hash.putBoolean(value.booleanValue());
       } else {
-        String value = entry.getValue().toString();
-        builder.addArguments(buildStringAttribute(entry.getKey(), value));
-        hash.update(value.getBytes(UTF_8));
+        String value = argument.toString();
+        attributes.add(buildStringAttribute(entry.getKey(), value));
+        hash.putString(value);
       }
     }
+    return attributes;
   }
 
   private static AttributeKeyValue buildStringAttribute(String key, String value) {
@@ -198,48 +439,202 @@ public class ThrowableTranslator {
     return AttributeKeyValue.newBuilder().setKey(key).setBoolValue(value).build();
   }
 
-  private static AttributeKeyValue buildAnyAttribute(String key, GeneratedMessageV3 value) {
-    String typeUrl = "type.googleapis.com/" + value.getDescriptorForType().getFullName();
-    Any any = Any.newBuilder().setTypeUrl(typeUrl).setValue(value.toByteString()).build();
-    return AttributeKeyValue.newBuilder()
-        .setKey(key).setAnyValue(any).setType(ValueType.ANY).build();
+  private static void calculateInstanceHash(ThrowableCapture capture, Fingerprinter hash) {
+    StackTraceElement[] elements = capture.stackTrace();
+    hash.putString(capture.getType());
+    if (elements.length > 0) {
+      hash.putStackTraceElement(elements[0]);
+    }
+    if (!isNullOrEmpty(capture.getMessage())) {
+      hash.putString(capture.getMessage());
+    }
   }
 
-  private static Throwable extractCause(Throwable throwable) {
-    if (throwable instanceof InvocationTargetException) {
-      return ((InvocationTargetException) throwable).getTargetException();
-    } else {
-      Throwable cause = throwable.getCause();
-      return cause == throwable ? null : cause;
+  private static void calculateIssueHash(ThrowableCapture capture, Fingerprinter hash) {
+    StackTraceElement[] elements = capture.stackTrace();
+    hash.putString(capture.getType());
+    if (elements.length > 0) {
+      hash.putStackTraceElement(elements[0]);
     }
   }
 
-  private static void calculateInstanceHash(Throwable throwable, MessageDigest hash) {
-    hash.update(throwable.getClass().getName().getBytes(UTF_8));
-    hash.update(throwable.getStackTrace()[0].toString().getBytes(UTF_8));
-    if (!isNullOrEmpty(throwable.getMessage())) {
-      hash.update(throwable.getMessage().getBytes(UTF_8));
+  /**
+   * The parts of an error decided before its exceptions are converted, shared by the builder and
+   * the wire writer paths.
+   */
+  private static final class ErrorHeader {
+
+    private final String hashId;
+    private final String issueHashId;
+    private final long sampledOutCount;
+    private final List<AttributeKeyValue> arguments;
+    private final boolean sendDetails;
+
+    ErrorHeader(String hashId, String issueHashId, long sampledOutCount,
+        List<AttributeKeyValue> arguments, boolean sendDetails) {
+      this.hashId = hashId;
+      this.issueHashId = issueHashId;
+      this.sampledOutCount = sampledOutCount;
+      this.arguments = arguments;
+      this.sendDetails = sendDetails;
     }
   }
 
-  private static void calculateIssueHash(Throwable throwable, MessageDigest hash) {
-    hash.update(throwable.getClass().getName().getBytes(UTF_8));
-    hash.update(throwable.getStackTrace()[0].toString().getBytes(UTF_8));
-  }
+  /**
+   * Cache key comparing stack traces by content. {@link Throwable#getStackTrace()} returns a new
+   * array on every call so the array identity cannot be used.
+   */
+  private static final class StackTraceKey {
+
+    private final StackTraceElement[] elements;
+    private final int uncapturedFrames;
+    private final int commonFrames;
+    private final int hashCode;
+
+    StackTraceKey(StackTraceElement[] elements, int uncapturedFrames, int commonFrames) {
+      this.elements = elements;
+      this.uncapturedFrames = uncapturedFrames;
+      this.commonFrames = commonFrames;
+      this.hashCode = (Arrays.hashCode(elements) * 31 + uncapturedFrames) * 31 + commonFrames;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof StackTraceKey)) {
+        return false;
+      }
+      StackTraceKey other = (StackTraceKey) obj;
+      return hashCode == other.hashCode && uncapturedFrames == other.uncapturedFrames
+          && commonFrames == other.commonFrames && Arrays.equals(elements, other.elements);
+    }
 
-  private static MessageDigest newMessageDigest() {
-    try {
-      return MessageDigest.getInstance("MD5");
-    } catch (NoSuchAlgorithmException willNeverBeThrown) {
-      LOGGER.log(Level.INFO, "unexpected exception", willNeverBeThrown);
-      throw new IllegalStateException(willNeverBeThrown);
+    @Override
+    public int hashCode() {
+      return hashCode;
     }
   }
 
-  private static String hashToString(MessageDigest hash) {
-    byte[] messageDigest = hash.digest();
-    BigInteger no = new BigInteger(1, messageDigest);
-    return padStart(no.toString(16), 32, '0');
+  /**
+   * Builder for {@link ThrowableTranslator}.
+   */
+  public static final class Builder {
+
+    private int maxStackTraceLength = DEFAULT_MAX_STACK_TRACE_LENGTH;
+    private long stackTraceCacheSize = DEFAULT_STACK_TRACE_CACHE_SIZE;
+    private FingerprintStrategy fingerprintStrategy = FingerprintStrategy.murmur3_128();
+    private IdGenerator idGenerator = IdGenerator.random();
+    @Nullable
+    private SeenIssuesRegistry seenIssuesRegistry;
+    @Nullable
+    private StackFrameInternPool stackFramePool;
+    private boolean elideCommonFrames;
+    private FrameSelectionPolicy frameSelectionPolicy = FrameSelectionPolicy.head();
+    @Nullable
+    private ErrorSampler errorSampler;
+
+    private Builder() {}
+
+    /**
+     * Sets the maximum number of frames recorded for each exception in the chain.
+     */
+    public Builder setMaxStackTraceLength(int maxStackTraceLength) {
+      checkArgument(maxStackTraceLength >= 0, "maxStackTraceLength must not be negative");
+      this.maxStackTraceLength = maxStackTraceLength;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of distinct stack traces whose converted {@link StackTrace} is
+     * kept for reuse. A value of zero disables the cache.
+     */
+    public Builder setStackTraceCacheSize(long stackTraceCacheSize) {
+      checkArgument(stackTraceCacheSize >= 0, "stackTraceCacheSize must not be negative");
+      this.stackTraceCacheSize = stackTraceCacheSize;
+      return this;
+    }
+
+    /**
+     * Sets the strategy used to compute {@code hash_id}, {@code issue_hash_id} and {@code
+     * stack_trace_hash_id}. Use {@link FingerprintStrategy#md5()} to keep ids compatible with
+     * earlier versions.
+     */
+    public Builder setFingerprintStrategy(FingerprintStrategy fingerprintStrategy) {
+      this.fingerprintStrategy =
+          checkNotNull(fingerprintStrategy, "fingerprintStrategy is required");
+      return this;
+    }
+
+    /**
+     * Sets the generator of {@code ExceptionData} ids. Use {@link IdGenerator#uuid()} for random
+     * UUIDs as produced by earlier versions.
+     */
+    public Builder setIdGenerator(IdGenerator idGenerator) {
+      this.idGenerator = checkNotNull(idGenerator, "idGenerator is required");
+      return this;
+    }
+
+    /**
+     * Sets the registry of issues already reported. Repeat occurrences of a known issue are
+     * translated without exceptions, carrying only {@code hash_id}, {@code issue_hash_id} and
+     * the arguments. {@code null}, the default, always translates the full exception chain.
+     *
+     * <p>Such compact events are meant for a collector that joins them with the details sent
+     * earlier. The {@code OtelEvent2*} converters need the exceptions and return {@code null}
+     * for them, so do not set a registry when translating for an in-process vendor target;
+     * {@link AsyncEventPipeline} counts them in {@link AsyncEventPipeline#getUnconvertedCount}.
+     */
+    public Builder setSeenIssuesRegistry(@Nullable SeenIssuesRegistry seenIssuesRegistry) {
+      this.seenIssuesRegistry = seenIssuesRegistry;
+      return this;
+    }
+
+    /**
+     * Sets the pool of shared {@link StackTrace.StackFrame} instances, which may also be passed to
+     * the converters. {@code null}, the default, builds new frames for every stack trace
+     * converted.
+     */
+    public Builder setStackFrameInternPool(@Nullable StackFrameInternPool stackFramePool) {
+      this.stackFramePool = stackFramePool;
+      return this;
+    }
+
+    /**
+     * Sets whether the frames a cause shares with the bottom of its enclosing exception's stack
+     * are left out and recorded as {@code common_frames_count}, like the "... N more" of {@link
+     * Throwable#printStackTrace()}. Converters rebuild the full stacks. Off by default.
+     */
+    public Builder setElideCommonFrames(boolean elideCommonFrames) {
+      this.elideCommonFrames = elideCommonFrames;
+      return this;
+    }
+
+    /**
+     * Sets the policy choosing which frames are recorded when a stack trace is longer than the
+     * maximum stack trace length, {@link FrameSelectionPolicy#head()} by default.
+     */
+    public Builder setFrameSelectionPolicy(FrameSelectionPolicy frameSelectionPolicy) {
+      this.frameSelectionPolicy =
+          checkNotNull(frameSelectionPolicy, "frameSelectionPolicy is required");
+      return this;
+    }
+
+    /**
+     * Sets the sampler deciding which occurrences of each issue are translated. Occurrences
+     * sampled out are not translated at all and the translate methods return {@code null};
+     * the next occurrence kept carries their count. {@code null}, the default, translates every
+     * occurrence.
+     */
+    public Builder setErrorSampler(@Nullable ErrorSampler errorSampler) {
+      this.errorSampler = errorSampler;
+      return this;
+    }
+
+    public ThrowableTranslator build() {
+      return new ThrowableTranslator(this);
+    }
   }
 
 }
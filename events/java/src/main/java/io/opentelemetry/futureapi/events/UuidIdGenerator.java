@@ -0,0 +1,36 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import java.util.UUID;
+
+/**
+ * Generates a random UUID for every id.
+ */
+final class UuidIdGenerator implements IdGenerator {
+
+  static final UuidIdGenerator INSTANCE = new UuidIdGenerator();
+
+  private static final IdSequence SEQUENCE = () -> UUID.randomUUID().toString();
+
+  @Override
+  public IdSequence newSequence() {
+    return SEQUENCE;
+  }
+
+  private UuidIdGenerator() {}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+
+/**
+ * Remembers, per X-Ray trace, the id under which each exception was first described, so that
+ * later segments of the same trace can refer to it by id instead of repeating its stack. The
+ * registry holds a bounded number of traces, each with a bounded number of exceptions. A trace
+ * is forgotten when {@link #endTrace} is called or once it has not been used for the trace
+ * timeout, whichever comes first.
+ */
+public final class XrayExceptionRegistry {
+
+  private final Cache<String, ConcurrentMap<String, String>> exceptionIdsByTrace;
+  private final int maximumExceptionsPerTrace;
+  private final LongAdder describedCount = new LongAdder();
+  private final LongAdder referencedCount = new LongAdder();
+
+  /**
+   * Creates a registry.
+   *
+   * @param maximumTraces the maximum number of traces remembered, least recently used are
+   *     evicted
+   * @param traceTimeout how long a trace is remembered after it was last used
+   * @param maximumExceptionsPerTrace the maximum number of exceptions remembered per trace;
+   *     further exceptions are always described in full
+   */
+  public XrayExceptionRegistry(
+      long maximumTraces, Duration traceTimeout, int maximumExceptionsPerTrace) {
+    this(maximumTraces, traceTimeout, maximumExceptionsPerTrace, Ticker.systemTicker());
+  }
+
+  XrayExceptionRegistry(long maximumTraces, Duration traceTimeout,
+      int maximumExceptionsPerTrace, Ticker ticker) {
+    checkArgument(maximumTraces > 0, "maximumTraces must be positive");
+    checkNotNull(traceTimeout, "traceTimeout is required");
+    checkArgument(maximumExceptionsPerTrace > 0, "maximumExceptionsPerTrace must be positive");
+    checkNotNull(ticker, "ticker is required");
+    this.maximumExceptionsPerTrace = maximumExceptionsPerTrace;
+    this.exceptionIdsByTrace = CacheBuilder.newBuilder()
+        .maximumSize(maximumTraces)
+        .expireAfterAccess(traceTimeout.toNanos(), TimeUnit.NANOSECONDS)
+        .ticker(ticker)
+        .build();
+  }
+
+  /**
+   * Returns the id the exception was described under earlier in the trace, or records it under
+   * the given id and returns {@code null} if it is new to the trace and should be described.
+   */
+  @Nullable
+  String describeOrReference(String traceId, String exceptionKey, String exceptionId) {
+    ConcurrentMap<String, String> exceptionIds;
+    try {
+      exceptionIds = exceptionIdsByTrace.get(traceId, ConcurrentHashMap::new);
+    } catch (ExecutionException cause) {
+      throw new IllegalStateException(cause.getCause());
+    }
+    String describedId = exceptionIds.get(exceptionKey);
+    if (describedId == null && exceptionIds.size() < maximumExceptionsPerTrace) {
+      describedId = exceptionIds.putIfAbsent(exceptionKey, exceptionId);
+    }
+    if (describedId == null) {
+      describedCount.increment();
+    } else {
+      referencedCount.increment();
+    }
+    return describedId;
+  }
+
+  /**
+   * Forgets the exceptions of a trace whose segments have all been sent.
+   */
+  public void endTrace(String traceId) {
+    exceptionIdsByTrace.invalidate(checkNotNull(traceId, "traceId is required"));
+  }
+
+  /**
+   * Returns the approximate number of traces currently remembered.
+   */
+  public long size() {
+    return exceptionIdsByTrace.size();
+  }
+
+  /**
+   * Returns how many exceptions were described in full.
+   */
+  public long getDescribedCount() {
+    return describedCount.sum();
+  }
+
+  /**
+   * Returns how many exceptions were sent as a reference to an earlier description.
+   */
+  public long getReferencedCount() {
+    return referencedCount.sum();
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Captures the current thread's stack up to a limit, counting the frames beyond it. This is the
+ * Java 9 implementation packaged in the multi-release jar: it walks the stack with {@link
+ * StackWalker} and only creates {@link StackTraceElement}s for the frames kept. The frames past
+ * the limit are still walked, which is the cost of an exact {@code dropped_frames_count}, but
+ * they are only counted: resolving names and line numbers into elements, the bulk of the work
+ * of {@link Throwable#getStackTrace()}, is skipped for them.
+ */
+final class CallSiteStackCapture {
+
+  /** Shows reflection frames, which {@link Throwable#getStackTrace()} includes as well. */
+  private static final StackWalker WALKER =
+      StackWalker.getInstance(StackWalker.Option.SHOW_REFLECT_FRAMES);
+
+  private final StackTraceElement[] frames;
+  private final int droppedFramesCount;
+
+  private CallSiteStackCapture(StackTraceElement[] frames, int droppedFramesCount) {
+    this.frames = frames;
+    this.droppedFramesCount = droppedFramesCount;
+  }
+
+  /**
+   * Captures the stack of the calling thread.
+   *
+   * @param skipFrames the number of frames above the caller of this method to leave out
+   * @param maxFrames the maximum number of frames kept after skipping
+   */
+  static CallSiteStackCapture capture(int skipFrames, int maxFrames) {
+    return WALKER.walk(stream -> {
+      Iterator<StackWalker.StackFrame> iterator = stream.skip(skipFrames + 1L).iterator();
+      StackTraceElement[] buffer = new StackTraceElement[Math.min(maxFrames, 64)];
+      int kept = 0;
+      while (kept < maxFrames && iterator.hasNext()) {
+        if (kept == buffer.length) {
+          buffer = Arrays.copyOf(buffer, Math.min(maxFrames, kept * 2));
+        }
+        buffer[kept++] = iterator.next().toStackTraceElement();
+      }
+      int dropped = 0;
+      while (iterator.hasNext()) {
+        iterator.next();
+        dropped++;
+      }
+      return new CallSiteStackCapture(
+          kept == buffer.length ? buffer : Arrays.copyOf(buffer, kept), dropped);
+    });
+  }
+
+  StackTraceElement[] getFrames() {
+    return frames;
+  }
+
+  int getDroppedFramesCount() {
+    return droppedFramesCount;
+  }
+}
@@ -19,13 +19,27 @@ package io.opentelemetry.futureapi.events;
 import io.opentelemetry.proto.events.v1.Event;
 import java.sql.SQLException;
 import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public abstract class AbstractConverterEquivalencyTesting {
 
   protected static Event translateThrowableToOtelEvent(Exception throwable) {
-    ThrowableTranslator translator = new ThrowableTranslator(128);
+    return translateThrowableToOtelEvent(new ThrowableTranslator(128), throwable);
+  }
+
+  protected static Event translateThrowableToOtelEventEliding(Exception throwable) {
+    ThrowableTranslator translator = ThrowableTranslator.newBuilder()
+        .setMaxStackTraceLength(128)
+        .setElideCommonFrames(true)
+        .build();
+    return translateThrowableToOtelEvent(translator, throwable);
+  }
+
+  private static Event translateThrowableToOtelEvent(
+      ThrowableTranslator translator, Exception throwable) {
     Map<String, Object> parameters = new HashMap<>();
     parameters.put("personId", 58763);
     parameters.put("firstName", "Kent");
@@ -35,6 +49,27 @@ public abstract class AbstractConverterEquivalencyTesting {
     return translator.translateThrowable(throwable, parameters);
   }
 
+  protected static Map<String, Object> generateParameters(int count) {
+    Map<String, Object> parameters = new HashMap<>();
+    for (int i = 0; i < count; i++) {
+      switch (i % 4) {
+        case 0:
+          parameters.put("intParam" + i, 58763 + i);
+          break;
+        case 1:
+          parameters.put("stringParam" + i, "value-" + i);
+          break;
+        case 2:
+          parameters.put("doubleParam" + i, 4.87 * i);
+          break;
+        default:
+          parameters.put("boolParam" + i, i % 3 == 0);
+          break;
+      }
+    }
+    return parameters;
+  }
+
   protected static Exception generateMultiCauseException() {
     try {
       AbstractConverterEquivalencyTesting.callThatThrowsNestedIllegalArgumentException();
@@ -44,6 +79,76 @@ public abstract class AbstractConverterEquivalencyTesting {
     return null;
   }
 
+  protected static Exception generateDeepException(int causeDepth, int stackDepth) {
+    try {
+      AbstractConverterEquivalencyTesting.callThatThrowsChainedException(causeDepth, stackDepth);
+    } catch (Exception exception) {
+      return exception;
+    }
+    return null;
+  }
+
+  /**
+   * Returns errors thrown from three different callers whose causes share their own frames, so
+   * with common frames elided the causes have the same stack hash but different full stacks.
+   */
+  protected static List<Exception> generateExceptionsWithSharedCause() {
+    Exception first = null;
+    Exception second = null;
+    Exception third = null;
+    try {
+      AbstractConverterEquivalencyTesting.callFromFirstCaller();
+    } catch (Exception exception) {
+      first = exception;
+    }
+    try {
+      AbstractConverterEquivalencyTesting.callFromSecondCaller();
+    } catch (Exception exception) {
+      second = exception;
+    }
+    try {
+      AbstractConverterEquivalencyTesting.callFromThirdCaller();
+    } catch (Exception exception) {
+      third = exception;
+    }
+    return Arrays.asList(first, second, third);
+  }
+
+  private static void callFromFirstCaller() {
+    AbstractConverterEquivalencyTesting.callThatThrowsNestedIllegalArgumentException();
+  }
+
+  private static void callFromSecondCaller() {
+    AbstractConverterEquivalencyTesting.callThatThrowsNestedIllegalArgumentException();
+  }
+
+  private static void callFromThirdCaller() {
+    AbstractConverterEquivalencyTesting.callThatThrowsNestedIllegalArgumentException();
+  }
+
+  private static void callThatThrowsChainedException(int causeDepth, int stackDepth)
+      throws SQLException {
+    if (causeDepth <= 1) {
+      AbstractConverterEquivalencyTesting.callThatRecursesThenThrowsSQLException(stackDepth);
+      return;
+    }
+    try {
+      AbstractConverterEquivalencyTesting.callThatThrowsChainedException(
+          causeDepth - 1, stackDepth);
+    } catch (Exception cause) {
+      throw new IllegalStateException("failure at depth " + causeDepth, cause);
+    }
+  }
+
+  private static void callThatRecursesThenThrowsSQLException(int remaining)
+      throws SQLException {
+    if (remaining <= 0) {
+      AbstractConverterEquivalencyTesting.callThatThrowsSQLException();
+    } else {
+      AbstractConverterEquivalencyTesting.callThatRecursesThenThrowsSQLException(remaining - 1);
+    }
+  }
+
   private static void callThatThrowsNestedIllegalArgumentException() {
     try {
       AbstractConverterEquivalencyTesting.callThatThrowsSQLException();
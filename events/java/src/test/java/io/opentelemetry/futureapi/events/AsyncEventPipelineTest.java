@@ -0,0 +1,214 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.opentelemetry.futureapi.events.AsyncEventPipeline.OverflowPolicy;
+import io.sentry.event.Event;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/** Unit tests for {@link AsyncEventPipeline}. */
+public class AsyncEventPipelineTest extends AbstractConverterEquivalencyTesting {
+
+  @Test
+  public void shouldDeliverEverySubmissionInBoundedBatches() {
+    List<List<Event>> batches = new CopyOnWriteArrayList<>();
+    OtelEvent2SentryEventConverter converter = new OtelEvent2SentryEventConverter();
+    AsyncEventPipeline<Event> pipeline = AsyncEventPipeline
+        .newBuilder(new ThrowableTranslator(), converter::convert, batches::add)
+        .setMaxBatchSize(8)
+        .setFlushInterval(Duration.ofMillis(50L))
+        .setOverflowPolicy(OverflowPolicy.BLOCK)
+        .setQueueCapacity(16)
+        .build();
+    for (int i = 0; i < 100; i++) {
+      assertTrue(pipeline.submit(generateMultiCauseException(), generateParameters(3)));
+    }
+    pipeline.close();
+    assertFalse(pipeline.submit(generateMultiCauseException(), Collections.emptyMap()));
+
+    int delivered = 0;
+    for (List<Event> batch : batches) {
+      assertTrue(batch.size() <= 8);
+      delivered += batch.size();
+    }
+    assertEquals(100, delivered);
+    assertEquals(100L, pipeline.getSubmittedCount());
+    assertEquals(100L, pipeline.getBatchedCount());
+    assertEquals(1L, pipeline.getDroppedCount());
+    assertEquals(batches.size(), pipeline.getBatchCount());
+    assertTrue(pipeline.getLargestBatchSize() <= 8L);
+    assertEquals(0, pipeline.getQueueDepth());
+  }
+
+  @Test
+  public void shouldFlushPartialBatchAfterInterval() throws InterruptedException {
+    CountDownLatch delivered = new CountDownLatch(1);
+    AsyncEventPipeline<DecodedEvent> pipeline = AsyncEventPipeline
+        .newBuilder(new ThrowableTranslator(), event -> event, batch -> delivered.countDown())
+        .setFlushInterval(Duration.ofMillis(20L))
+        .build();
+    try {
+      pipeline.submit(generateMultiCauseException(), Collections.emptyMap());
+      assertTrue(delivered.await(5L, TimeUnit.SECONDS));
+      assertEquals(1L, pipeline.getBatchCount());
+    } finally {
+      pipeline.close();
+    }
+  }
+
+  @Test
+  public void shouldDropWhenQueueIsFull() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(1);
+    AsyncEventPipeline<DecodedEvent> pipeline = AsyncEventPipeline
+        .newBuilder(new ThrowableTranslator(), event -> event, batch -> {
+          started.countDown();
+          awaitQuietly(release);
+        })
+        .setQueueCapacity(4)
+        .setMaxBatchSize(1)
+        .setFlushInterval(Duration.ofMillis(10L))
+        .build();
+    try {
+      pipeline.submit(generateMultiCauseException(), Collections.emptyMap());
+      assertTrue(started.await(5L, TimeUnit.SECONDS));
+      for (int i = 0; i < 10; i++) {
+        pipeline.submit(generateMultiCauseException(), Collections.emptyMap());
+      }
+      assertEquals(4, pipeline.getQueueDepth());
+      assertEquals(6L, pipeline.getDroppedCount());
+    } finally {
+      release.countDown();
+      pipeline.close();
+    }
+    assertEquals(5L, pipeline.getBatchedCount());
+  }
+
+  @Test
+  public void shouldDeliverEveryAcceptedSubmissionWhenClosedConcurrently()
+      throws InterruptedException {
+    Exception throwable = generateMultiCauseException();
+    for (int round = 0; round < 100; round++) {
+      AtomicInteger delivered = new AtomicInteger();
+      AsyncEventPipeline<DecodedEvent> pipeline = AsyncEventPipeline
+          .newBuilder(new ThrowableTranslator(), event -> event,
+              batch -> delivered.addAndGet(batch.size()))
+          .setFlushInterval(Duration.ofMillis(1L))
+          .build();
+      CountDownLatch running = new CountDownLatch(4);
+      Thread[] producers = new Thread[4];
+      for (int i = 0; i < producers.length; i++) {
+        producers[i] = new Thread(() -> {
+          running.countDown();
+          for (int attempt = 0; attempt < 200; attempt++) {
+            pipeline.submit(throwable, Collections.emptyMap());
+          }
+        });
+        producers[i].start();
+      }
+      assertTrue(running.await(5L, TimeUnit.SECONDS));
+      pipeline.close();
+      for (Thread producer : producers) {
+        producer.join();
+      }
+      assertEquals(800L, pipeline.getSubmittedCount() + pipeline.getDroppedCount());
+      assertEquals(pipeline.getSubmittedCount(), delivered.get());
+      assertEquals(0, pipeline.getQueueDepth());
+    }
+  }
+
+  @Test
+  public void shouldKeepRunningWhenConverterOrSinkThrowsError() {
+    AtomicInteger sinkCalls = new AtomicInteger();
+    List<DecodedEvent> delivered = new CopyOnWriteArrayList<>();
+    AsyncEventPipeline<DecodedEvent> pipeline = AsyncEventPipeline
+        .newBuilder(new ThrowableTranslator(), event -> {
+          if ("converter".equals(event.getErrorData().getExceptions(0).getMesssage())) {
+            throw new StackOverflowError();
+          }
+          return event;
+        }, batch -> {
+          if (sinkCalls.incrementAndGet() == 1) {
+            throw new AssertionError("sink");
+          }
+          delivered.addAll(batch);
+        })
+        .setMaxBatchSize(1)
+        .setFlushInterval(Duration.ofMillis(10L))
+        .setOverflowPolicy(OverflowPolicy.BLOCK)
+        .build();
+    pipeline.submit(new IllegalStateException("sink"), Collections.emptyMap());
+    pipeline.submit(new IllegalStateException("converter"), Collections.emptyMap());
+    pipeline.submit(new IllegalStateException("delivered"), Collections.emptyMap());
+    pipeline.close();
+    assertEquals(1, delivered.size());
+    assertEquals(2L, pipeline.getFailedCount());
+    assertEquals(0L, pipeline.getDroppedCount());
+  }
+
+  @Test
+  public void shouldCloseIdlePipelineWithoutWaitingForFlushInterval() {
+    AsyncEventPipeline<DecodedEvent> pipeline = AsyncEventPipeline
+        .newBuilder(new ThrowableTranslator(), event -> event, batch -> { })
+        .setFlushInterval(Duration.ofSeconds(30L))
+        .build();
+    long start = System.nanoTime();
+    pipeline.close();
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10L));
+    assertEquals(0, pipeline.getQueueDepth());
+  }
+
+  @Test
+  public void shouldCountCompactRepeatsTheConverterCannotConvert() {
+    List<Event> delivered = new CopyOnWriteArrayList<>();
+    ThrowableTranslator translator = ThrowableTranslator.newBuilder()
+        .setSeenIssuesRegistry(
+            new SeenIssuesRegistry(100, Duration.ofHours(1L), Duration.ofHours(1L)))
+        .build();
+    OtelEvent2SentryEventConverter converter = new OtelEvent2SentryEventConverter();
+    AsyncEventPipeline<Event> pipeline = AsyncEventPipeline
+        .newBuilder(translator, converter::convert, delivered::addAll)
+        .build();
+    Exception throwable = generateMultiCauseException();
+    for (int i = 0; i < 3; i++) {
+      pipeline.submit(throwable, Collections.emptyMap());
+    }
+    pipeline.close();
+    assertEquals(1, delivered.size());
+    assertEquals(2L, pipeline.getUnconvertedCount());
+    assertEquals(0L, pipeline.getFailedCount());
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException cause) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static io.opentelemetry.futureapi.events.EventConstants.ATTR_ERROR_OBJECT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import io.opentelemetry.proto.common.v1.AttributeKeyValue;
+import io.opentelemetry.proto.common.v1.AttributeKeyValue.ValueType;
+import io.opentelemetry.proto.events.v1.Event;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/** Unit tests for {@link AttributeView}. */
+public class AttributeViewTest extends AbstractConverterEquivalencyTesting {
+
+  @Test
+  public void shouldReadTypedValuesFromShortList() {
+    AttributeView view = AttributeView.of(generateAttributes(0));
+    assertTypedValues(view);
+  }
+
+  @Test
+  public void shouldReadTypedValuesFromIndexedList() {
+    int fillerCount = AttributeView.LINEAR_SCAN_THRESHOLD * 4;
+    List<AttributeKeyValue> attributes = generateAttributes(fillerCount);
+    AttributeView view = AttributeView.of(attributes);
+    assertTypedValues(view);
+    for (int i = 0; i < fillerCount; i++) {
+      assertEquals(i, view.getLong("filler" + i, -1L));
+    }
+    assertEquals(view.toMap(), AttributeUtils.convertAttributeListToMap(attributes));
+  }
+
+  @Test
+  public void shouldLetLastDuplicateWin() {
+    for (int filler : new int[] {0, AttributeView.LINEAR_SCAN_THRESHOLD * 2}) {
+      List<AttributeKeyValue> attributes = generateAttributes(filler);
+      attributes.add(AttributeKeyValue.newBuilder()
+          .setKey("long").setType(ValueType.INT).setIntValue(7L).build());
+      AttributeView view = AttributeView.of(attributes);
+      assertEquals(7L, view.getLong("long", -1L));
+    }
+  }
+
+  @Test
+  public void shouldFindErrorObjectOfTranslatedEvent() {
+    Event event = translateThrowableToOtelEvent(generateMultiCauseException());
+    AttributeView view = AttributeView.of(event.getAttributesList());
+    assertNotNull(view.getAny(ATTR_ERROR_OBJECT));
+    assertEquals(ValueType.ANY, view.getType(ATTR_ERROR_OBJECT));
+  }
+
+  private static void assertTypedValues(AttributeView view) {
+    assertEquals("text", view.getString("string"));
+    assertEquals(42L, view.getLong("long", -1L));
+    assertEquals(3.14d, view.getDouble("double", 0.0d), 0.0d);
+    assertTrue(view.getBool("bool", false));
+    assertEquals(-1L, view.getLong("string", -1L));
+    assertNull(view.getString("long"));
+    assertNull(view.getAny("missing"));
+    assertFalse(view.contains("missing"));
+    assertNull(view.getType("missing"));
+  }
+
+  private static List<AttributeKeyValue> generateAttributes(int fillerCount) {
+    List<AttributeKeyValue> attributes = new ArrayList<>();
+    for (int i = 0; i < fillerCount; i++) {
+      attributes.add(AttributeKeyValue.newBuilder()
+          .setKey("filler" + i).setType(ValueType.INT).setIntValue(i).build());
+    }
+    attributes.add(AttributeKeyValue.newBuilder()
+        .setKey("string").setType(ValueType.STRING).setStringValue("text").build());
+    attributes.add(AttributeKeyValue.newBuilder()
+        .setKey("long").setType(ValueType.INT).setIntValue(42L).build());
+    attributes.add(AttributeKeyValue.newBuilder()
+        .setKey("double").setType(ValueType.DOUBLE).setDoubleValue(3.14d).build());
+    attributes.add(AttributeKeyValue.newBuilder()
+        .setKey("bool").setType(ValueType.BOOL).setBoolValue(true).build());
+    return attributes;
+  }
+}
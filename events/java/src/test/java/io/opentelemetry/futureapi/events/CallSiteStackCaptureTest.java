@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link CallSiteStackCapture}. The {@code java9Test} task runs them again with the
+ * Java 9 classes of the multi-release jar ahead of the Java 8 ones.
+ */
+public class CallSiteStackCaptureTest {
+
+  /** Class file major version of Java 8, the release the main classes are compiled for. */
+  private static final int JAVA_8_CLASS_VERSION = 52;
+
+  @Test
+  public void shouldLoadTheImplementationOfTheTestedRelease() throws IOException {
+    int release = Integer.getInteger("events.multiReleaseClasses", 8);
+    assertEquals(JAVA_8_CLASS_VERSION + release - 8, readClassVersion(CallSiteStackCapture.class));
+  }
+
+  @Test
+  public void shouldKeepFramesUpToLimitAndCountTheRest() {
+    StackTraceElement[] expected = new Throwable().getStackTrace();
+    CallSiteStackCapture capture = CallSiteStackCapture.capture(0, 3);
+    StackTraceElement[] frames = capture.getFrames();
+    assertEquals(3, frames.length);
+    assertEquals("shouldKeepFramesUpToLimitAndCountTheRest", frames[0].getMethodName());
+    for (int i = 1; i < frames.length; i++) {
+      assertEquals(expected[i], frames[i]);
+    }
+    assertEquals(expected.length - 3, capture.getDroppedFramesCount());
+  }
+
+  @Test
+  public void shouldSkipFramesAboveTheCaller() {
+    StackTraceElement[] expected = new Throwable().getStackTrace();
+    CallSiteStackCapture capture = captureFromHelper(1, expected.length);
+    StackTraceElement[] frames = capture.getFrames();
+    assertEquals(expected.length, frames.length);
+    assertEquals("shouldSkipFramesAboveTheCaller", frames[0].getMethodName());
+    assertEquals(0, capture.getDroppedFramesCount());
+  }
+
+  @Test
+  public void shouldOnlyCountFramesWhenLimitIsZero() {
+    int depth = new Throwable().getStackTrace().length;
+    CallSiteStackCapture capture = CallSiteStackCapture.capture(0, 0);
+    assertEquals(0, capture.getFrames().length);
+    assertEquals(depth, capture.getDroppedFramesCount());
+  }
+
+  private static CallSiteStackCapture captureFromHelper(int skipFrames, int maxFrames) {
+    return CallSiteStackCapture.capture(skipFrames, maxFrames);
+  }
+
+  private static int readClassVersion(Class<?> type) throws IOException {
+    try (InputStream in = type.getResourceAsStream(type.getSimpleName() + ".class")) {
+      DataInputStream data = new DataInputStream(in);
+      data.readInt();
+      data.readUnsignedShort();
+      return data.readUnsignedShort();
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static io.opentelemetry.futureapi.events.EventConstants.EVENT_ERROR;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.devtools.clouderrorreporting.v1beta1.ReportedErrorEvent;
+import io.opentelemetry.proto.events.v1.ErrorData;
+import io.opentelemetry.proto.events.v1.Event;
+import java.util.Collections;
+import org.junit.Test;
+
+/** Unit tests for {@link DecodedEvent}. */
+public class DecodedEventTest extends AbstractConverterEquivalencyTesting {
+
+  @Test
+  public void shouldDecodeErrorDataOnceAndShareIt() {
+    Event source = translateThrowableToOtelEvent(generateMultiCauseException());
+    DecodedEvent decoded = DecodedEvent.of(source);
+    ErrorData errorData = decoded.getErrorData();
+    assertNotNull(errorData);
+    assertSame(errorData, decoded.getErrorData());
+    assertEquals(2, errorData.getExceptionsCount());
+    assertNotNull(new OtelEvent2SentryEventConverter().convert(decoded));
+    assertNotNull(new OtelEvent2RollbarThrowableWrapperConverter().convert(decoded));
+    assertNotNull(new OtelEvent2AwsXrayCauseConverter().convert(decoded));
+    assertSame(errorData, decoded.getErrorData());
+  }
+
+  @Test
+  public void shouldConvertDecodedEventLikeEvent() {
+    Event source = translateThrowableToOtelEvent(generateMultiCauseException());
+    OtelEvent2GcpErrorEventConverter converter = new OtelEvent2GcpErrorEventConverter();
+    ReportedErrorEvent expected = converter.convert(source);
+    ReportedErrorEvent actual = converter.convert(DecodedEvent.of(source));
+    assertEquals(expected, actual);
+  }
+
+  @Test
+  public void shouldReturnNullErrorDataForEventWithoutErrorObject() {
+    Event source = Event.newBuilder().setDescription(EVENT_ERROR).build();
+    DecodedEvent decoded = DecodedEvent.of(source);
+    assertNull(decoded.getErrorData());
+    assertNull(new OtelEvent2AwsXrayCauseConverter().convert(decoded));
+  }
+
+  @Test
+  public void shouldConvertTranslatedEventWithoutSerializingIt() {
+    DecodedEvent translated = new ThrowableTranslator()
+        .translate(generateMultiCauseException(), Collections.emptyMap());
+    assertNotNull(new OtelEvent2SentryEventConverter().convert(translated));
+    assertNotNull(new OtelEvent2GcpErrorEventConverter().convert(translated));
+    assertNotNull(new OtelEvent2RollbarThrowableWrapperConverter().convert(translated));
+    assertNotNull(new OtelEvent2AwsXrayCauseConverter().convert(translated));
+    assertFalse(translated.isSerialized());
+
+    Event event = translated.getEvent();
+    assertTrue(translated.isSerialized());
+    assertSame(event, translated.getEvent());
+    assertEquals(EVENT_ERROR, event.getDescription());
+    assertEquals(translated.getTimeUnixnano(), event.getTimeUnixnano());
+    assertEquals(translated.getErrorData(), DecodedEvent.of(event).getErrorData());
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static io.opentelemetry.futureapi.events.EventConstants.ATTR_ERROR_AGGREGATE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.opentelemetry.proto.common.v1.AttributeKeyValue;
+import io.opentelemetry.proto.events.v1.ErrorAggregate;
+import io.opentelemetry.proto.events.v1.Event;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/** Unit tests for {@link ErrorAggregator}. */
+public class ErrorAggregatorTest extends AbstractConverterEquivalencyTesting {
+
+  @Test
+  public void shouldCollapseIdenticalErrorsIntoOneSummary() throws Exception {
+    FakeTicker ticker = new FakeTicker();
+    ErrorAggregator aggregator = new ErrorAggregator(Duration.ofSeconds(10L), 2, ticker);
+    ThrowableTranslator translator = new ThrowableTranslator();
+    Exception error = generateMultiCauseException();
+    for (int i = 0; i < 5; i++) {
+      assertTrue(aggregator.add(
+          translator.translate(error, Collections.singletonMap("tenant", "acme"))));
+    }
+    assertTrue(aggregator.add(
+        translator.translate(new IllegalStateException("other"), Collections.emptyMap())));
+    assertEquals(2, aggregator.size());
+    ticker.advance(9, TimeUnit.SECONDS);
+    assertTrue(aggregator.drainExpired().isEmpty());
+    ticker.advance(1, TimeUnit.SECONDS);
+    List<Event> summaries = aggregator.drainExpired();
+    assertEquals(2, summaries.size());
+    assertEquals(0, aggregator.size());
+    ErrorAggregate aggregate = null;
+    for (Event summary : summaries) {
+      ErrorAggregate candidate = getAggregate(summary);
+      if (candidate.getCount() == 5L) {
+        aggregate = candidate;
+      }
+    }
+    assertNotNull(aggregate);
+    assertEquals(2, aggregate.getArgumentSamplesCount());
+    assertTrue(aggregate.getFirstTimeUnixnano() <= aggregate.getLastTimeUnixnano());
+  }
+
+  @Test
+  public void shouldKeepSummaryConvertible() throws Exception {
+    ErrorAggregator aggregator = new ErrorAggregator(Duration.ofSeconds(1L), 1, new FakeTicker());
+    Event source = translateThrowableToOtelEvent(generateMultiCauseException());
+    aggregator.add(DecodedEvent.of(source));
+    aggregator.add(DecodedEvent.of(source));
+    List<Event> summaries = aggregator.drainAll();
+    assertEquals(1, summaries.size());
+    assertEquals(2L, getAggregate(summaries.get(0)).getCount());
+    assertEquals(DecodedEvent.of(source).getErrorData(),
+        DecodedEvent.of(summaries.get(0)).getErrorData());
+    assertNotNull(new OtelEvent2SentryEventConverter().convert(summaries.get(0)));
+  }
+
+  @Test
+  public void shouldRejectEventsWithoutErrorData() {
+    ErrorAggregator aggregator = new ErrorAggregator(Duration.ofSeconds(1L), 1, new FakeTicker());
+    assertFalse(aggregator.add(DecodedEvent.of(Event.newBuilder().setDescription("log").build())));
+    assertEquals(0, aggregator.size());
+  }
+
+  @Test
+  public void shouldLeaveNewErrorsToCallerWhileMaximumWindowsAreOpen() {
+    ErrorAggregator aggregator =
+        new ErrorAggregator(Duration.ofSeconds(1L), 1, 2, new FakeTicker());
+    ThrowableTranslator translator = new ThrowableTranslator();
+    for (int i = 0; i < 5; i++) {
+      DecodedEvent event = translator.translate(
+          new IllegalStateException("message " + i), Collections.emptyMap());
+      assertEquals(i < 2, aggregator.add(event));
+    }
+    assertEquals(2, aggregator.size());
+    assertEquals(3L, aggregator.getOverflowCount());
+
+    Exception error = generateMultiCauseException();
+    DecodedEvent repeated = translator.translate(error, Collections.emptyMap());
+    assertFalse(aggregator.add(repeated));
+    assertEquals(2, aggregator.drainAll().size());
+    assertTrue(aggregator.add(repeated));
+    assertTrue(aggregator.add(repeated));
+    assertEquals(1, aggregator.size());
+  }
+
+  private static ErrorAggregate getAggregate(Event event) throws InvalidProtocolBufferException {
+    for (AttributeKeyValue attribute : event.getAttributesList()) {
+      if (ATTR_ERROR_AGGREGATE.equals(attribute.getKey())) {
+        return attribute.getAnyValue().unpack(ErrorAggregate.class);
+      }
+    }
+    throw new AssertionError("no aggregate attribute");
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import io.opentelemetry.proto.events.v1.ErrorData;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/** Unit tests for {@link ErrorSampler}. */
+public class ErrorSamplerTest extends AbstractConverterEquivalencyTesting {
+
+  @Test
+  public void shouldKeepFirstOccurrencesThenLimitPerIssue() {
+    FakeTicker ticker = new FakeTicker();
+    ErrorSampler sampler = ErrorSampler.newBuilder()
+        .setAlwaysKeepFirst(2)
+        .setIssueRate(1.0d, 1)
+        .setTicker(ticker)
+        .build();
+    assertEquals(0L, sampler.sample("issue"));
+    assertEquals(0L, sampler.sample("issue"));
+    assertEquals(0L, sampler.sample("issue"));
+    assertEquals(ErrorSampler.SAMPLED_OUT, sampler.sample("issue"));
+    assertEquals(ErrorSampler.SAMPLED_OUT, sampler.sample("issue"));
+    assertEquals(0L, sampler.sample("other"));
+    ticker.advance(1, TimeUnit.SECONDS);
+    assertEquals(2L, sampler.sample("issue"));
+    assertEquals(ErrorSampler.SAMPLED_OUT, sampler.sample("issue"));
+    assertEquals(5L, sampler.getKeptCount());
+    assertEquals(3L, sampler.getSampledOutCount());
+    assertEquals(2L, sampler.size());
+  }
+
+  @Test
+  public void shouldShareGlobalBudgetAcrossIssues() {
+    FakeTicker ticker = new FakeTicker();
+    ErrorSampler sampler = ErrorSampler.newBuilder()
+        .setAlwaysKeepFirst(0)
+        .setIssueRate(100.0d, 10)
+        .setGlobalRate(1.0d, 2)
+        .setTicker(ticker)
+        .build();
+    assertEquals(0L, sampler.sample("a"));
+    assertEquals(0L, sampler.sample("b"));
+    assertEquals(ErrorSampler.SAMPLED_OUT, sampler.sample("c"));
+    assertEquals(ErrorSampler.SAMPLED_OUT, sampler.sample("a"));
+    ticker.advance(1, TimeUnit.SECONDS);
+    assertEquals(1L, sampler.sample("c"));
+    assertEquals(ErrorSampler.SAMPLED_OUT, sampler.sample("c"));
+  }
+
+  @Test
+  public void shouldKeepIssueTokenWhenGlobalBudgetIsExhausted() {
+    FakeTicker ticker = new FakeTicker();
+    ErrorSampler sampler = ErrorSampler.newBuilder()
+        .setAlwaysKeepFirst(0)
+        .setIssueRate(1.0d, 1)
+        .setGlobalRate(2.0d, 1)
+        .setTicker(ticker)
+        .build();
+    assertEquals(0L, sampler.sample("a"));
+    assertEquals(ErrorSampler.SAMPLED_OUT, sampler.sample("b"));
+    ticker.advance(500, TimeUnit.MILLISECONDS);
+    assertEquals(1L, sampler.sample("b"));
+    assertEquals(ErrorSampler.SAMPLED_OUT, sampler.sample("b"));
+  }
+
+  @Test
+  public void shouldAttachSampledOutCountToNextTranslatedError() {
+    FakeTicker ticker = new FakeTicker();
+    ErrorSampler sampler = ErrorSampler.newBuilder()
+        .setAlwaysKeepFirst(1)
+        .setIssueRate(1.0d, 1)
+        .setTicker(ticker)
+        .build();
+    ThrowableTranslator translator = ThrowableTranslator.newBuilder()
+        .setErrorSampler(sampler)
+        .build();
+    Exception exception = generateMultiCauseException();
+    assertNotNull(translator.translateThrowable(exception, Collections.emptyMap()));
+    assertNotNull(translator.translateThrowable(exception, Collections.emptyMap()));
+    for (int i = 0; i < 3; i++) {
+      assertNull(translator.translateThrowable(exception, Collections.emptyMap()));
+    }
+    ticker.advance(1, TimeUnit.SECONDS);
+    ErrorData errorData = translator.translate(exception, Collections.emptyMap()).getErrorData();
+    assertEquals(3L, errorData.getSampledOutCount());
+    assertEquals(2, errorData.getExceptionsCount());
+  }
+}
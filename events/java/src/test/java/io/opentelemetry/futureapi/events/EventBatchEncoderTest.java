@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.amazonaws.xray.entities.Cause;
+import com.google.devtools.clouderrorreporting.v1beta1.ReportedErrorEvent;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.opentelemetry.proto.events.v1.ErrorData;
+import io.opentelemetry.proto.events.v1.Event;
+import io.opentelemetry.proto.events.v1.StackTrace;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+/** Unit tests for {@link EventBatchEncoder} and {@link StackTraceTable}. */
+public class EventBatchEncoderTest extends AbstractConverterEquivalencyTesting {
+
+  @Test
+  public void shouldSendRepeatedStackTracesAsReferences() throws InvalidProtocolBufferException {
+    Exception throwable = generateMultiCauseException();
+    Event first = translateThrowableToOtelEvent(throwable);
+    Event second = translateThrowableToOtelEvent(throwable);
+    List<Event> encoded = new EventBatchEncoder().encode(Arrays.asList(first, second));
+    assertSame(first, encoded.get(0));
+    ErrorData errorData = extractErrorData(encoded.get(1));
+    for (int i = 0; i < errorData.getExceptionsCount(); i++) {
+      StackTrace stackTrace = errorData.getExceptions(i).getStack();
+      assertEquals(0, stackTrace.getFramesCount());
+      assertEquals(extractErrorData(first).getExceptions(i).getStack().getStackTraceHashId(),
+          stackTrace.getStackTraceHashId());
+    }
+    assertTrue(encoded.get(1).getSerializedSize() < second.getSerializedSize());
+  }
+
+  @Test
+  public void shouldRehydrateReferencesWhenConverting() {
+    Exception throwable = generateMultiCauseException();
+    Event first = translateThrowableToOtelEvent(throwable);
+    Event second = translateThrowableToOtelEvent(throwable);
+    List<Event> encoded = new EventBatchEncoder().encode(Arrays.asList(first, second));
+    StackTraceTable table = StackTraceTable.fromEvents(encoded);
+    assertEquals(2, table.size());
+
+    OtelEvent2AwsXrayCauseConverter xrayConverter = new OtelEvent2AwsXrayCauseConverter();
+    Cause expected = xrayConverter.convert(second);
+    Cause actual = xrayConverter.convert(encoded.get(1), table);
+    for (int i = 0; i < expected.getExceptions().size(); i++) {
+      assertArrayEquals(expected.getExceptions().get(i).getStack(),
+          actual.getExceptions().get(i).getStack());
+    }
+
+    OtelEvent2GcpErrorEventConverter gcpConverter = new OtelEvent2GcpErrorEventConverter();
+    ReportedErrorEvent expectedGcp = gcpConverter.convert(second);
+    ReportedErrorEvent actualGcp = gcpConverter.convert(encoded.get(1), table);
+    assertEquals(expectedGcp.getMessage(), actualGcp.getMessage());
+    assertEquals(expectedGcp.getContext(), actualGcp.getContext());
+  }
+
+  private static ErrorData extractErrorData(Event event) throws InvalidProtocolBufferException {
+    return ErrorData.parseFrom(event.getAttributesList().get(1).getAnyValue().getValue());
+  }
+}
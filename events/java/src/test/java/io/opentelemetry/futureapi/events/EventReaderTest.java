@@ -0,0 +1,159 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static io.opentelemetry.futureapi.events.EventConstants.ATTR_ERROR_MESSAGE;
+import static io.opentelemetry.futureapi.events.EventConstants.ATTR_ERROR_OBJECT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.opentelemetry.proto.common.v1.AttributeKeyValue;
+import io.opentelemetry.proto.events.v1.ErrorData;
+import io.opentelemetry.proto.events.v1.Event;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Unit tests for {@link EventReader}. */
+public class EventReaderTest extends AbstractConverterEquivalencyTesting {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void shouldDecodeErrorDataAndSkipOtherAttributes() throws Exception {
+    Event source = translateThrowableToOtelEvent(generateMultiCauseException());
+    DecodedEvent decoded = new EventReader().read(ByteBuffer.wrap(source.toByteArray()));
+    assertEquals(source.getTimeUnixnano(), decoded.getTimeUnixnano());
+    assertEquals(source.getDescription(), decoded.getDescription());
+    assertEquals(DecodedEvent.of(source).getErrorData(), decoded.getErrorData());
+    assertEquals(1, decoded.getEvent().getAttributesCount());
+    assertNotNull(new OtelEvent2SentryEventConverter().convert(decoded));
+  }
+
+  @Test
+  public void shouldKeepRetainedAttributesFromDirectBuffer() throws Exception {
+    Event source = translateThrowableToOtelEvent(generateMultiCauseException());
+    byte[] bytes = source.toByteArray();
+    ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+    buffer.put(bytes).flip();
+    DecodedEvent decoded =
+        new EventReader(Collections.singleton(ATTR_ERROR_MESSAGE)).read(buffer);
+    assertEquals(0, buffer.position());
+    assertEquals(source, decoded.getEvent());
+  }
+
+  @Test
+  public void shouldReadDelimitedFramesIncrementally() throws Exception {
+    Event first = translateThrowableToOtelEvent(generateMultiCauseException());
+    Event second = translateThrowableToOtelEvent(new IllegalStateException("second"));
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    first.writeDelimitedTo(stream);
+    second.writeDelimitedTo(stream);
+    byte[] bytes = stream.toByteArray();
+    EventReader reader = new EventReader(Collections.singleton(ATTR_ERROR_MESSAGE));
+
+    ByteBuffer buffer = ByteBuffer.allocate(bytes.length);
+    buffer.put(bytes, 0, 1).flip();
+    assertNull(reader.readDelimited(buffer));
+    assertEquals(0, buffer.position());
+    int firstLength = CodedOutputStream.computeUInt32SizeNoTag(first.getSerializedSize())
+        + first.getSerializedSize();
+    buffer.compact().put(bytes, 1, firstLength).flip();
+    assertEquals(first, reader.readDelimited(buffer).getEvent());
+    assertNull(reader.readDelimited(buffer));
+    buffer.compact().put(bytes, firstLength + 1, bytes.length - firstLength - 1).flip();
+    assertEquals(second, reader.readDelimited(buffer).getEvent());
+    assertTrue(!buffer.hasRemaining());
+  }
+
+  @Test
+  public void shouldReadFramesFromMappedFile() throws Exception {
+    Event source = translateThrowableToOtelEvent(generateMultiCauseException());
+    File file = folder.newFile();
+    try (RandomAccessFile output = new RandomAccessFile(file, "rw")) {
+      ByteArrayOutputStream stream = new ByteArrayOutputStream();
+      source.writeDelimitedTo(stream);
+      source.writeDelimitedTo(stream);
+      output.write(stream.toByteArray());
+    }
+    try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+      MappedByteBuffer buffer =
+          input.getChannel().map(FileChannel.MapMode.READ_ONLY, 0L, input.length());
+      EventReader reader = new EventReader();
+      int count = 0;
+      for (DecodedEvent decoded = reader.readDelimited(buffer); decoded != null;
+          decoded = reader.readDelimited(buffer)) {
+        assertEquals(DecodedEvent.of(source).getErrorData(), decoded.getErrorData());
+        count++;
+      }
+      assertEquals(2, count);
+    }
+  }
+
+  @Test
+  public void shouldDecodeAttributeWithKeyAfterValue() throws Exception {
+    Event source = translateThrowableToOtelEvent(generateMultiCauseException());
+    AttributeKeyValue errorObject = source.getAttributes(1);
+    assertEquals(ATTR_ERROR_OBJECT, errorObject.getKey());
+    ByteArrayOutputStream attribute = new ByteArrayOutputStream();
+    CodedOutputStream output = CodedOutputStream.newInstance(attribute);
+    output.writeMessage(7, errorObject.getAnyValue());
+    output.writeEnum(2, errorObject.getTypeValue());
+    output.writeString(1, errorObject.getKey());
+    output.flush();
+    ByteArrayOutputStream event = new ByteArrayOutputStream();
+    output = CodedOutputStream.newInstance(event);
+    output.writeString(2, source.getDescription());
+    output.writeByteArray(3, attribute.toByteArray());
+    output.flush();
+    DecodedEvent decoded = new EventReader().read(ByteBuffer.wrap(event.toByteArray()));
+    assertEquals(DecodedEvent.of(source).getErrorData(), decoded.getErrorData());
+  }
+
+  @Test
+  public void shouldAcceptAnyTypeUrlPrefixLikeAny() throws Exception {
+    Event translated = translateThrowableToOtelEvent(generateMultiCauseException());
+    AttributeKeyValue errorObject = translated.getAttributes(1);
+    assertEquals(ATTR_ERROR_OBJECT, errorObject.getKey());
+    Event source = translated.toBuilder()
+        .setAttributes(1, errorObject.toBuilder().setAnyValue(errorObject.getAnyValue()
+            .toBuilder()
+            .setTypeUrl("example.com/types/" + ErrorData.getDescriptor().getFullName())))
+        .build();
+    DecodedEvent decoded = new EventReader().read(ByteBuffer.wrap(source.toByteArray()));
+    assertNotNull(decoded.getErrorData());
+    assertEquals(DecodedEvent.of(source).getErrorData(), decoded.getErrorData());
+  }
+
+  @Test(expected = InvalidProtocolBufferException.class)
+  public void shouldRejectFrameLongerThanBufferCanHold() throws Exception {
+    byte[] frame = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 0x00};
+    new EventReader().readDelimited(ByteBuffer.wrap(frame));
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.google.protobuf.CodedOutputStream;
+import io.opentelemetry.proto.events.v1.Event;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link EventWireWriter}. Each case runs the same captures through two
+ * identically configured translators, one building the event and one writing it directly, and
+ * requires identical bytes. Ids restart for every error and the event time comes from the
+ * shared capture, so both paths are deterministic.
+ */
+public class EventWireWriterTest extends AbstractConverterEquivalencyTesting {
+
+  private static final IdGenerator SEQUENTIAL_IDS = () -> {
+    int[] next = {0};
+    return () -> "id-" + next[0]++;
+  };
+
+  @Test
+  public void shouldMatchBuilderPathForDefaultTranslator() throws IOException {
+    assertParity(() -> newBuilder().build(), Arrays.asList(
+        generateMultiCauseException(),
+        generateDeepException(4, 80),
+        new IllegalStateException(),
+        new IllegalArgumentException("")));
+  }
+
+  @Test
+  public void shouldMatchBuilderPathForEdgeCaseArguments() throws IOException {
+    Map<String, Object> arguments = new LinkedHashMap<>();
+    arguments.put("zero", 0);
+    arguments.put("negative", -7L);
+    arguments.put("zeroDouble", 0.0d);
+    arguments.put("negativeZero", -0.0d);
+    arguments.put("false", false);
+    arguments.put("empty", "");
+    arguments.put("unicode", "caf\u00e9 \u2603");
+    arguments.put("missing", null);
+    ThrowableTranslator builderPath = newBuilder().build();
+    ThrowableTranslator writerPath = newBuilder().build();
+    ThrowableCapture capture = ThrowableCapture.of(generateMultiCauseException());
+    assertEquals(builderPath.translate(capture, arguments).getEvent(),
+        Event.parseFrom(write(writerPath, capture, arguments)));
+    assertArrayEquals(builderPath.translate(capture, arguments).getEvent().toByteArray(),
+        write(writerPath, capture, arguments));
+  }
+
+  @Test
+  public void shouldMatchBuilderPathWithEveryOption() throws IOException {
+    assertParity(() -> newBuilder()
+            .setMaxStackTraceLength(10)
+            .setStackTraceCacheSize(0L)
+            .setElideCommonFrames(true)
+            .setFrameSelectionPolicy(FrameSelectionPolicy.headAndTail(3))
+            .setSeenIssuesRegistry(new SeenIssuesRegistry(
+                100L, Duration.ofHours(1L), Duration.ofHours(1L)))
+            .setErrorSampler(ErrorSampler.newBuilder()
+                .setAlwaysKeepFirst(1)
+                .setIssueRate(1.0d, 1)
+                .setTicker(new FakeTicker())
+                .build())
+            .build(),
+        Arrays.asList(
+            generateMultiCauseException(),
+            generateMultiCauseException(),
+            generateMultiCauseException(),
+            generateDeepException(3, 40)));
+  }
+
+  @Test
+  public void shouldWriteDelimitedEventsIntoReusedBuffer() throws IOException {
+    ThrowableTranslator translator = newBuilder().build();
+    ThrowableCapture capture = ThrowableCapture.of(generateMultiCauseException());
+    ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    EventReader reader = new EventReader(
+        Collections.singleton(EventConstants.ATTR_ERROR_MESSAGE));
+    for (int i = 0; i < 3; i++) {
+      buffer.clear();
+      CodedOutputStream output = CodedOutputStream.newInstance(buffer);
+      int written = translator.writeDelimitedEvent(capture, generateParameters(5), output);
+      output.flush();
+      buffer.flip();
+      assertEquals(written, buffer.remaining());
+      assertEquals(translator.translate(capture, generateParameters(5)).getEvent(),
+          reader.readDelimited(buffer).getEvent());
+    }
+  }
+
+  @Test
+  public void shouldWriteNothingWhenSampledOut() throws IOException {
+    ThrowableTranslator translator = newBuilder()
+        .setErrorSampler(ErrorSampler.newBuilder()
+            .setAlwaysKeepFirst(0)
+            .setIssueRate(1.0d, 1)
+            .setTicker(new FakeTicker())
+            .build())
+        .build();
+    ThrowableCapture capture = ThrowableCapture.of(generateMultiCauseException());
+    assertNotNull(write(translator, capture, null));
+    byte[] bytes = new byte[16];
+    CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+    assertEquals(-1, translator.writeEvent(capture, null, output));
+    assertEquals(bytes.length, output.spaceLeft());
+    assertNull(translator.translate(capture, null));
+  }
+
+  private static ThrowableTranslator.Builder newBuilder() {
+    return ThrowableTranslator.newBuilder().setIdGenerator(SEQUENTIAL_IDS);
+  }
+
+  private static void assertParity(Supplier<ThrowableTranslator> translators,
+      List<Exception> errors) throws IOException {
+    ThrowableTranslator builderPath = translators.get();
+    ThrowableTranslator writerPath = translators.get();
+    for (Exception error : errors) {
+      ThrowableCapture capture = ThrowableCapture.of(error);
+      Map<String, Object> arguments = generateParameters(6);
+      DecodedEvent expected = builderPath.translate(capture, arguments);
+      byte[] actual = write(writerPath, capture, arguments);
+      if (expected == null) {
+        assertNull(actual);
+      } else {
+        assertArrayEquals(expected.getEvent().toByteArray(), actual);
+      }
+    }
+  }
+
+  private static byte[] write(ThrowableTranslator translator, ThrowableCapture capture,
+      Map<String, Object> arguments) throws IOException {
+    byte[] buffer = new byte[64 * 1024];
+    CodedOutputStream output = CodedOutputStream.newInstance(buffer);
+    int written = translator.writeEvent(capture, arguments, output);
+    if (written < 0) {
+      return null;
+    }
+    assertEquals(written, buffer.length - output.spaceLeft());
+    return Arrays.copyOf(buffer, written);
+  }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import com.google.common.base.Ticker;
+import java.util.concurrent.TimeUnit;
+
+/** Ticker advanced by hand. */
+final class FakeTicker extends Ticker {
+
+  private long nanos;
+
+  @Override
+  public long read() {
+    return nanos;
+  }
+
+  void advance(long duration, TimeUnit unit) {
+    nanos += unit.toNanos(duration);
+  }
+}
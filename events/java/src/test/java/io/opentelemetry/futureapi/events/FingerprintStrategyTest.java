@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.opentelemetry.futureapi.events.FingerprintStrategy.Fingerprinter;
+import io.opentelemetry.proto.events.v1.ErrorData;
+import io.opentelemetry.proto.events.v1.Event;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Test;
+
+/** Unit tests for {@link FingerprintStrategy}. */
+public class FingerprintStrategyTest {
+
+  @Test
+  public void shouldProduceSameIdsAsLegacyMd5Hashing()
+      throws InvalidProtocolBufferException, NoSuchAlgorithmException {
+    ThrowableTranslator translator = ThrowableTranslator.newBuilder()
+        .setFingerprintStrategy(FingerprintStrategy.md5())
+        .build();
+    Exception throwable = new IllegalStateException("invalid state");
+    Map<String, Object> parameters = new LinkedHashMap<>();
+    parameters.put("personId", 58763);
+    parameters.put("firstName", "Kent");
+    parameters.put("participant", true);
+    Event event = translator.translateThrowable(throwable, parameters);
+    ErrorData errorData =
+        ErrorData.parseFrom(event.getAttributesList().get(1).getAnyValue().getValue());
+
+    StackTraceElement topFrame = throwable.getStackTrace()[0];
+    MessageDigest hash = MessageDigest.getInstance("MD5");
+    hash.update(IllegalStateException.class.getName().getBytes(UTF_8));
+    hash.update(topFrame.toString().getBytes(UTF_8));
+    hash.update("invalid state".getBytes(UTF_8));
+    hash.update("personId".getBytes(UTF_8));
+    hash.update("firstName".getBytes(UTF_8));
+    hash.update("Kent".getBytes(UTF_8));
+    hash.update("participant".getBytes(UTF_8));
+    hash.update((byte) 1);
+    MessageDigest issue = MessageDigest.getInstance("MD5");
+    issue.update(IllegalStateException.class.getName().getBytes(UTF_8));
+    issue.update(topFrame.toString().getBytes(UTF_8));
+
+    assertEquals(toLegacyHex(hash), errorData.getHashId());
+    assertEquals(toLegacyHex(issue), errorData.getIssueHashId());
+  }
+
+  @Test
+  public void shouldProduceStableLowerCaseHexIdsWithMurmur3() {
+    String first = FingerprintStrategy.murmur3_128().newFingerprinter()
+        .putString("java.lang.IllegalStateException")
+        .putLong(58763L)
+        .putDouble(4.87)
+        .putBoolean(true)
+        .hash();
+    String second = FingerprintStrategy.murmur3_128().newFingerprinter()
+        .putString("java.lang.IllegalStateException")
+        .putLong(58763L)
+        .putDouble(4.87)
+        .putBoolean(true)
+        .hash();
+    assertEquals(first, second);
+    assertEquals(32, first.length());
+    assertEquals(first.toLowerCase(), first);
+  }
+
+  @Test
+  public void shouldDistinguishStackTraceElementsWithMurmur3() {
+    StackTraceElement element = new StackTraceElement("a.B", "c", "B.java", 10);
+    StackTraceElement other = new StackTraceElement("a.B", "c", "B.java", 11);
+    String first = FingerprintStrategy.murmur3_128().newFingerprinter()
+        .putStackTraceElement(element).hash();
+    String second = FingerprintStrategy.murmur3_128().newFingerprinter()
+        .putStackTraceElement(other).hash();
+    assertNotEquals(first, second);
+  }
+
+  @Test
+  public void shouldMatchGuavaMurmur3ForMisalignedInput() {
+    Fingerprinter fingerprinter = FingerprintStrategy.murmur3_128().newFingerprinter();
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    for (int i = 0; i < 40; i++) {
+      String value = "value-\u00e9\u4e2d-" + i;
+      fingerprinter.putString(value).putBoolean(i % 3 == 0).putLong(i * 31L).putDouble(i / 7.0);
+      hasher.putUnencodedChars(value).putBoolean(i % 3 == 0).putLong(i * 31L).putDouble(i / 7.0);
+    }
+    StackTraceElement element = new StackTraceElement("a.B", "c", null, 42);
+    fingerprinter.putBoolean(true).putStackTraceElement(element);
+    hasher.putBoolean(true).putUnencodedChars("a.B").putChar('.').putUnencodedChars("c")
+        .putChar('(').putChar(':').putInt(42).putChar(')');
+    assertEquals(hasher.hash().toString(), fingerprinter.hash());
+  }
+
+  @Test
+  public void shouldEncodeStringsForMd5ExactlyAsStringGetBytes() throws NoSuchAlgorithmException {
+    StringBuilder value = new StringBuilder();
+    for (int i = 0; i < 300; i++) {
+      value.append("a\u00e9\u4e2d\ud83d\ude00");
+    }
+    value.append('\ud83d').append("tail").append('\ude00');
+    String expectedInput = value.toString();
+    MessageDigest expected = MessageDigest.getInstance("MD5");
+    expected.update(expectedInput.getBytes(UTF_8));
+    String actual = FingerprintStrategy.md5().newFingerprinter().putString(expectedInput).hash();
+    assertEquals(toLegacyHex(expected), actual);
+  }
+
+  private static String toLegacyHex(MessageDigest digest) {
+    String hex = new BigInteger(1, digest.digest()).toString(16);
+    while (hex.length() < 32) {
+      hex = "0" + hex;
+    }
+    return hex;
+  }
+}
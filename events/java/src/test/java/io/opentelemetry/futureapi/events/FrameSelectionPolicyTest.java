@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import io.opentelemetry.proto.events.v1.StackTrace;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+/** Unit tests for {@link FrameSelectionPolicy}. */
+public class FrameSelectionPolicyTest {
+
+  @Test
+  public void shouldKeepTopFrames() {
+    StackTraceElement[] frames = frames("a.A", "a.B", "a.C", "a.D");
+    assertArrayEquals(new int[] {0, 1}, FrameSelectionPolicy.head().select(frames, 2));
+    assertArrayEquals(new int[] {0, 1, 2, 3}, FrameSelectionPolicy.head().select(frames, 8));
+  }
+
+  @Test
+  public void shouldKeepTopAndBottomFrames() {
+    StackTraceElement[] frames = frames("a.A", "a.B", "a.C", "a.D", "a.E", "a.F");
+    assertArrayEquals(new int[] {0, 1, 4, 5},
+        FrameSelectionPolicy.headAndTail(2).select(frames, 4));
+    assertArrayEquals(new int[] {4, 5}, FrameSelectionPolicy.headAndTail(3).select(frames, 2));
+  }
+
+  @Test
+  public void shouldPreferApplicationFrames() {
+    StackTraceElement[] frames = frames(
+        "java.lang.Integer", "org.framework.X", "com.example.Service", "org.framework.Y",
+        "com.example.generated.Proxy", "com.example.Main");
+    FrameSelectionPolicy policy = FrameSelectionPolicy.applicationFirst(
+        Collections.singletonList("com.example."),
+        Collections.singletonList("com.example.generated."));
+    assertArrayEquals(new int[] {0, 2, 5}, policy.select(frames, 3));
+    assertArrayEquals(new int[] {0, 1, 2, 5}, policy.select(frames, 4));
+  }
+
+  @Test
+  public void shouldCollapseRecursiveFrames() {
+    StackTraceElement top = new StackTraceElement("a.R", "recurse", "R.java", 10);
+    StackTraceElement recursive = new StackTraceElement("a.R", "recurse", "R.java", 12);
+    StackTraceElement ping = new StackTraceElement("a.P", "ping", "P.java", 1);
+    StackTraceElement pong = new StackTraceElement("a.P", "pong", "P.java", 2);
+    StackTraceElement main = new StackTraceElement("a.M", "main", "M.java", 3);
+    StackTraceElement[] frames = {
+        top, recursive, recursive, recursive, ping, pong, ping, pong, ping, pong, main};
+    FrameSelectionPolicy policy = FrameSelectionPolicy.collapseRecursion(
+        FrameSelectionPolicy.head());
+    assertArrayEquals(new int[] {0, 1, 4, 5, 10}, policy.select(frames, 10));
+    assertArrayEquals(new int[] {0, 1, 4}, policy.select(frames, 3));
+  }
+
+  @Test
+  public void shouldCountUnselectedFramesAsDropped() {
+    Exception exception = new IllegalStateException("deep");
+    StackTraceElement[] frames = new StackTraceElement[40];
+    Arrays.fill(frames, 1, 39, new StackTraceElement("a.R", "recurse", "R.java", 12));
+    frames[0] = new StackTraceElement("a.R", "recurse", "R.java", 10);
+    frames[39] = new StackTraceElement("a.M", "main", "M.java", 3);
+    exception.setStackTrace(frames);
+    ThrowableTranslator translator = ThrowableTranslator.newBuilder()
+        .setMaxStackTraceLength(50)
+        .setFrameSelectionPolicy(FrameSelectionPolicy.collapseRecursion(
+            FrameSelectionPolicy.headAndTail(1)))
+        .build();
+    StackTrace stack = translator.translate(exception, Collections.emptyMap())
+        .getErrorData().getExceptions(0).getStack();
+    assertEquals(3, stack.getFramesCount());
+    assertEquals(37, stack.getDroppedFramesCount());
+    assertEquals("main", stack.getFrames(2).getFunctionName());
+  }
+
+  private static StackTraceElement[] frames(String... classNames) {
+    StackTraceElement[] frames = new StackTraceElement[classNames.length];
+    for (int i = 0; i < classNames.length; i++) {
+      frames[i] = new StackTraceElement(classNames[i], "run", "Source.java", i + 1);
+    }
+    return frames;
+  }
+}
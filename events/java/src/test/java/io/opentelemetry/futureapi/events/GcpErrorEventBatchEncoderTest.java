@@ -0,0 +1,144 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static io.opentelemetry.futureapi.events.EventConstants.ATTR_SERVICE_NAME;
+import static io.opentelemetry.futureapi.events.EventConstants.ATTR_SERVICE_VERSION;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.devtools.clouderrorreporting.v1beta1.ReportedErrorEvent;
+import io.opentelemetry.proto.common.v1.AttributeKeyValue;
+import io.opentelemetry.proto.common.v1.AttributeKeyValue.ValueType;
+import io.opentelemetry.proto.events.v1.Event;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.Test;
+
+/** Unit tests for {@link GcpErrorEventBatchEncoder}. */
+public class GcpErrorEventBatchEncoderTest extends AbstractConverterEquivalencyTesting {
+
+  @Test
+  public void shouldGroupByServiceContextAndBoundChunkSize() {
+    Event error = translateThrowableToOtelEvent(generateMultiCauseException());
+    Event checkout = withService(error, "checkout", "2.0");
+    Event billing = withService(error, "billing", "1.0");
+    RecordingSink sink = new RecordingSink();
+    int chunkCount = GcpErrorEventBatchEncoder.newBuilder()
+        .setMaxChunkSize(2)
+        .build()
+        .encode(Arrays.asList(checkout, billing, error, checkout, billing, checkout,
+            Event.newBuilder().setDescription("log").build()), sink);
+
+    assertEquals(4, chunkCount);
+    assertEquals(Arrays.asList(2, 2, 1, 1), sink.chunkSizes());
+    assertEquals(Arrays.asList("billing", "checkout", "unknown"), sink.services());
+    assertEquals("2.0", sink.requests.get(1).get(0).getServiceContext().getVersion());
+  }
+
+  @Test
+  public void shouldBoundChunkBytes() {
+    Event error = translateThrowableToOtelEvent(generateMultiCauseException());
+    long eventBytes = new OtelEvent2GcpErrorEventConverter().convert(error).getSerializedSize();
+    List<List<ReportedErrorEvent>> chunks = GcpErrorEventBatchEncoder.newBuilder()
+        .setMaxChunkBytes(eventBytes * 2L + eventBytes / 2L)
+        .build()
+        .encode(Arrays.asList(error, error, error, error, error));
+    assertEquals(3, chunks.size());
+    for (List<ReportedErrorEvent> chunk : chunks) {
+      long bytes = 0L;
+      for (ReportedErrorEvent event : chunk) {
+        bytes += event.getSerializedSize();
+      }
+      assertTrue(bytes <= eventBytes * 2L + eventBytes / 2L);
+    }
+  }
+
+  @Test
+  public void shouldConvertLargeBatchesInParallelLikeSequentially() {
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      Event error = translateThrowableToOtelEvent(generateDeepException(i % 3, 10 + i));
+      events.add(withService(error, "service-" + i % 4, "1"));
+    }
+    events = new EventBatchEncoder().encode(events);
+    AtomicInteger tasks = new AtomicInteger();
+    Executor executor = task -> {
+      tasks.incrementAndGet();
+      ForkJoinPool.commonPool().execute(task);
+    };
+    List<List<ReportedErrorEvent>> parallel = GcpErrorEventBatchEncoder.newBuilder()
+        .setParallelism(8, 8)
+        .setExecutor(executor)
+        .build()
+        .encode(events);
+    List<List<ReportedErrorEvent>> sequential = GcpErrorEventBatchEncoder.newBuilder()
+        .setParallelism(Integer.MAX_VALUE, 8)
+        .build()
+        .encode(events);
+    assertEquals(7, tasks.get());
+    assertEquals(sequential, parallel);
+    assertEquals(4, parallel.size());
+  }
+
+  private static Event withService(Event event, String service, String version) {
+    return event.toBuilder()
+        .addAttributes(AttributeKeyValue.newBuilder()
+            .setKey(ATTR_SERVICE_NAME).setType(ValueType.STRING).setStringValue(service))
+        .addAttributes(AttributeKeyValue.newBuilder()
+            .setKey(ATTR_SERVICE_VERSION).setType(ValueType.STRING).setStringValue(version))
+        .build();
+  }
+
+  /** Fake export endpoint recording every request it receives. */
+  private static final class RecordingSink implements Consumer<List<ReportedErrorEvent>> {
+
+    private final List<List<ReportedErrorEvent>> requests = new ArrayList<>();
+
+    @Override
+    public void accept(List<ReportedErrorEvent> request) {
+      requests.add(request);
+    }
+
+    List<Integer> chunkSizes() {
+      List<Integer> sizes = new ArrayList<>();
+      for (List<ReportedErrorEvent> request : requests) {
+        sizes.add(request.size());
+      }
+      return sizes;
+    }
+
+    List<String> services() {
+      List<String> services = new ArrayList<>();
+      for (List<ReportedErrorEvent> request : requests) {
+        String service = request.get(0).getServiceContext().getService();
+        if (services.isEmpty() || !services.get(services.size() - 1).equals(service)) {
+          services.add(service);
+        }
+        for (ReportedErrorEvent event : request) {
+          assertEquals(service, event.getServiceContext().getService());
+        }
+      }
+      return services;
+    }
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.opentelemetry.futureapi.events.IdGenerator.IdSequence;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.Test;
+
+/** Unit tests for {@link IdGenerator}. */
+public class IdGeneratorTest {
+
+  @Test
+  public void shouldGenerateUniqueHexIdsWithinSequence() {
+    IdSequence sequence = IdGenerator.random().newSequence();
+    Set<String> ids = new HashSet<>();
+    for (int i = 0; i < 100; i++) {
+      String id = sequence.nextId();
+      assertTrue(id.matches("[0-9a-f]{16}"));
+      ids.add(id);
+    }
+    assertEquals(100, ids.size());
+  }
+
+  @Test
+  public void shouldGenerateUuidIds() {
+    IdSequence sequence = IdGenerator.uuid().newSequence();
+    String id = sequence.nextId();
+    assertEquals(id, UUID.fromString(id).toString());
+    assertTrue(!id.equals(sequence.nextId()));
+  }
+}
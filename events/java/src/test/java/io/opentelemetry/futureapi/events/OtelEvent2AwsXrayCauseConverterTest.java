@@ -16,7 +16,9 @@
 
 package io.opentelemetry.futureapi.events;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import com.amazonaws.xray.AWSXRayRecorder;
 import com.amazonaws.xray.entities.Cause;
@@ -24,7 +26,10 @@ import com.amazonaws.xray.entities.SegmentImpl;
 import com.amazonaws.xray.entities.ThrowableDescription;
 import com.amazonaws.xray.strategy.DefaultThrowableSerializationStrategy;
 import io.opentelemetry.proto.events.v1.Event;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import org.junit.Test;
 
 /** Unit tests for {@link OtelEvent2AwsXrayCauseConverter}. */
@@ -59,4 +64,63 @@ public class OtelEvent2AwsXrayCauseConverterTest extends AbstractConverterEquiva
       assertEquals(expectedElement.getLineNumber(), actualElement.getLineNumber());
     }
   }
-}
\ No newline at end of file
+
+  @Test
+  public void shouldRebuildStacksElidedAsCommonFrames() {
+    Exception throwable = generateDeepException(3, 10);
+    OtelEvent2AwsXrayCauseConverter converter = new OtelEvent2AwsXrayCauseConverter();
+    Cause expected = converter.convert(translateThrowableToOtelEvent(throwable));
+    Cause actual = converter.convert(translateThrowableToOtelEventEliding(throwable));
+    assertEquals(expected.getExceptions().size(), actual.getExceptions().size());
+    for (int i = 0; i < expected.getExceptions().size(); i++) {
+      assertArrayEquals(expected.getExceptions().get(i).getStack(),
+          actual.getExceptions().get(i).getStack());
+    }
+  }
+
+  @Test
+  public void shouldReferToExceptionsDescribedEarlierInTheTrace() {
+    Exception throwable = generateMultiCauseException();
+    XrayExceptionRegistry registry = new XrayExceptionRegistry(100, Duration.ofMinutes(5), 64);
+    OtelEvent2AwsXrayCauseConverter converter =
+        new OtelEvent2AwsXrayCauseConverter(null, registry);
+    Cause first = converter.convert(translateThrowableToOtelEvent(throwable), null, "trace-1");
+    int chainLength = first.getExceptions().size();
+    assertTrue(chainLength > 1);
+    String describedId = first.getExceptions().get(0).getId();
+
+    Cause repeated = converter.convert(translateThrowableToOtelEvent(throwable), null, "trace-1");
+    assertEquals(describedId, repeated.getId());
+    assertTrue(repeated.getExceptions().isEmpty());
+
+    Exception wrapper = new IllegalStateException("retry failed", throwable);
+    Cause wrapped = converter.convert(translateThrowableToOtelEvent(wrapper), null, "trace-1");
+    assertEquals(1, wrapped.getExceptions().size());
+    assertEquals(describedId, wrapped.getExceptions().get(0).getCause());
+
+    Cause otherTrace =
+        converter.convert(translateThrowableToOtelEvent(throwable), null, "trace-2");
+    assertEquals(chainLength, otherTrace.getExceptions().size());
+  }
+
+  @Test
+  public void shouldNotReferToCausesWhoseRestoredStacksDiffer() {
+    List<Exception> throwables = generateExceptionsWithSharedCause();
+    List<Event> events = new ArrayList<>();
+    for (Exception throwable : throwables) {
+      events.add(translateThrowableToOtelEventEliding(throwable));
+    }
+    List<Event> encoded = new EventBatchEncoder().encode(events);
+    StackTraceTable table = StackTraceTable.fromEvents(encoded);
+    XrayExceptionRegistry registry = new XrayExceptionRegistry(100, Duration.ofMinutes(5), 64);
+    OtelEvent2AwsXrayCauseConverter converter =
+        new OtelEvent2AwsXrayCauseConverter(null, registry);
+    for (Event event : encoded) {
+      Cause target = converter.convert(event, table, "trace-1");
+      assertEquals(2, target.getExceptions().size());
+      assertEquals(target.getExceptions().get(1).getId(),
+          target.getExceptions().get(0).getCause());
+    }
+    assertEquals(0, registry.getReferencedCount());
+  }
+}
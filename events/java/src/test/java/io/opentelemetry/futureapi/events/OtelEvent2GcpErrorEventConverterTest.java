@@ -17,12 +17,17 @@
 package io.opentelemetry.futureapi.events;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static io.opentelemetry.futureapi.events.EventConstants.EVENT_ERROR;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import com.google.cloud.logging.LoggingHandler;
 import com.google.cloud.logging.LoggingOptions;
 import com.google.devtools.clouderrorreporting.v1beta1.ReportedErrorEvent;
+import io.opentelemetry.proto.events.v1.ErrorData;
 import io.opentelemetry.proto.events.v1.Event;
+import io.opentelemetry.proto.events.v1.ExceptionData;
+import io.opentelemetry.proto.events.v1.StackTrace;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringReader;
@@ -61,6 +66,50 @@ public class OtelEvent2GcpErrorEventConverterTest extends AbstractConverterEquiv
     assertEquals(expectedLines, actualLines);
   }
 
+  @Test
+  public void shouldRebuildStacksElidedAsCommonFrames() {
+    Exception throwable = generateDeepException(3, 10);
+    OtelEvent2GcpErrorEventConverter converter = new OtelEvent2GcpErrorEventConverter();
+    ReportedErrorEvent expected = converter.convert(translateThrowableToOtelEvent(throwable));
+    ReportedErrorEvent actual = converter.convert(translateThrowableToOtelEventEliding(throwable));
+    assertEquals(expected.getMessage(), actual.getMessage());
+  }
+
+  @Test
+  public void shouldReportConfiguredServiceContext() {
+    OtelEvent2GcpErrorEventConverter converter =
+        new OtelEvent2GcpErrorEventConverter("checkout", "1.4.2");
+    ReportedErrorEvent target =
+        converter.convert(translateThrowableToOtelEvent(generateMultiCauseException()));
+    assertEquals("checkout", target.getServiceContext().getService());
+    assertEquals("1.4.2", target.getServiceContext().getVersion());
+  }
+
+  @Test
+  public void shouldFormatFramesLikeStackTraceElement() {
+    StackTrace.Builder stack = StackTrace.newBuilder();
+    StackTraceElement[] elements = {
+        new StackTraceElement("com.example.Service", "call", "Service.java", 42),
+        new StackTraceElement("com.example.Service", "lambda$0", "Service.java", -1),
+        new StackTraceElement("sun.misc.Unsafe", "park", "", -2),
+        new StackTraceElement("com.example.Generated", "run", "", 0)
+    };
+    for (StackTraceElement element : elements) {
+      stack.addFrames(AttributeUtils.convertStackTraceElement2StackFrame(element));
+    }
+    ErrorData errorData = ErrorData.newBuilder()
+        .addExceptions(ExceptionData.newBuilder()
+            .setType("java.lang.IllegalStateException")
+            .setStack(stack))
+        .build();
+    ReportedErrorEvent target = new OtelEvent2GcpErrorEventConverter().convert(
+        DecodedEvent.ofErrorData(Event.newBuilder().setDescription(EVENT_ERROR).build(),
+            errorData));
+    for (StackTraceElement element : elements) {
+      assertTrue(target.getMessage().contains("\tat " + element + "\n"));
+    }
+  }
+
   private List<String> extractExceptionLines(String message) throws IOException {
     List<String> lines = new ArrayList<>();
     try (BufferedReader reader = new BufferedReader(new StringReader(message))) {
@@ -16,7 +16,12 @@
 
 package io.opentelemetry.futureapi.events;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import com.rollbar.notifier.wrapper.RollbarThrowableWrapper;
 import com.rollbar.notifier.wrapper.ThrowableWrapper;
@@ -48,4 +53,39 @@ public class OtelEvent2RollbarThrowableWrapperConverterTest
     assertEquals(expectedElement.getMethodName(), actualElement.getMethodName());
     assertEquals(expectedElement.getLineNumber(), actualElement.getLineNumber());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void shouldRebuildStacksElidedAsCommonFrames() {
+    Exception throwable = generateDeepException(3, 10);
+    OtelEvent2RollbarThrowableWrapperConverter converter =
+        new OtelEvent2RollbarThrowableWrapperConverter();
+    ThrowableWrapper expected = converter.convert(translateThrowableToOtelEvent(throwable));
+    ThrowableWrapper actual = converter.convert(translateThrowableToOtelEventEliding(throwable));
+    while (expected != null) {
+      assertArrayEquals(expected.getStackTrace(), actual.getStackTrace());
+      expected = expected.getCause();
+      actual = actual.getCause();
+    }
+    assertNull(actual);
+  }
+
+  @Test
+  public void shouldConvertFramesOnlyWhenRequested() {
+    Exception throwable = generateMultiCauseException();
+    OtelEvent2RollbarThrowableWrapperConverter converter =
+        new OtelEvent2RollbarThrowableWrapperConverter();
+    LazyThrowableWrapper target = (LazyThrowableWrapper)
+        converter.convert(translateThrowableToOtelEvent(throwable));
+    LazyThrowableWrapper cause = (LazyThrowableWrapper) target.getCause();
+    assertEquals(throwable.getClass().getName(), target.getClassName());
+    assertFalse(target.isStackTraceConverted());
+
+    StackTraceElement[] stackTrace = target.getStackTrace();
+    assertEquals(throwable.getStackTrace().length, stackTrace.length);
+    assertEquals(throwable.getStackTrace()[0].getMethodName(), stackTrace[0].getMethodName());
+    assertSame(stackTrace, target.getStackTrace());
+    assertTrue(target.isStackTraceConverted());
+    assertFalse(cause.isStackTraceConverted());
+    assertEquals(target, converter.convert(translateThrowableToOtelEvent(throwable)));
+  }
+}
@@ -16,16 +16,24 @@
 
 package io.opentelemetry.futureapi.events;
 
+import static io.opentelemetry.futureapi.events.EventConstants.EVENT_ERROR;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
+import io.opentelemetry.proto.events.v1.ErrorData;
 import io.opentelemetry.proto.events.v1.Event;
+import io.opentelemetry.proto.events.v1.ExceptionData;
 import io.sentry.event.Event.Level;
 import io.sentry.event.EventBuilder;
 import io.sentry.event.interfaces.ExceptionInterface;
 import io.sentry.event.interfaces.SentryException;
 import io.sentry.event.interfaces.SentryStackTraceElement;
 import java.util.Date;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import org.junit.Test;
 
 /** Unit tests for {@link OtelEvent2SentryEventConverter}. */
@@ -71,4 +79,97 @@ public class OtelEvent2SentryEventConverterTest extends AbstractConverterEquival
     }
   }
 
+  @Test
+  public void shouldRebuildStacksElidedAsCommonFrames() {
+    Exception throwable = generateDeepException(3, 10);
+    OtelEvent2SentryEventConverter converter = new OtelEvent2SentryEventConverter();
+    Iterator<SentryException> expectedIter =
+        extractExceptions(converter.convert(translateThrowableToOtelEvent(throwable)));
+    Iterator<SentryException> actualIter =
+        extractExceptions(converter.convert(translateThrowableToOtelEventEliding(throwable)));
+    while (expectedIter.hasNext()) {
+      SentryStackTraceElement[] expected = expectedIter.next().getStackTraceInterface()
+          .getStackTrace();
+      SentryStackTraceElement[] actual = actualIter.next().getStackTraceInterface()
+          .getStackTrace();
+      assertEquals(expected.length, actual.length);
+      for (int i = 0; i < expected.length; i++) {
+        assertEquals(expected[i].getFunction(), actual[i].getFunction());
+        assertEquals(expected[i].getLineno(), actual[i].getLineno());
+      }
+    }
+    assertFalse(actualIter.hasNext());
+  }
+
+  @Test
+  public void shouldShareStackTracesOfRepeatedErrors() {
+    Exception throwable = generateMultiCauseException();
+    OtelEvent2SentryEventConverter converter = new OtelEvent2SentryEventConverter();
+    Iterator<SentryException> firstIter =
+        extractExceptions(converter.convert(translateThrowableToOtelEvent(throwable)));
+    Iterator<SentryException> secondIter =
+        extractExceptions(converter.convert(translateThrowableToOtelEvent(throwable)));
+    while (firstIter.hasNext()) {
+      assertSame(firstIter.next().getStackTraceInterface(),
+          secondIter.next().getStackTraceInterface());
+    }
+
+    OtelEvent2SentryEventConverter uncached = new OtelEvent2SentryEventConverter(0L);
+    assertNotSame(
+        extractExceptions(uncached.convert(translateThrowableToOtelEvent(throwable))).next()
+            .getStackTraceInterface(),
+        extractExceptions(uncached.convert(translateThrowableToOtelEvent(throwable))).next()
+            .getStackTraceInterface());
+  }
+
+  @Test
+  public void shouldNotShareRestoredStacksOfBatchReferences() {
+    List<Exception> throwables = generateExceptionsWithSharedCause();
+    List<Event> events = new ArrayList<>();
+    for (Exception throwable : throwables) {
+      events.add(translateThrowableToOtelEventEliding(throwable));
+    }
+    List<Event> encoded = new EventBatchEncoder().encode(events);
+    StackTraceTable table = StackTraceTable.fromEvents(encoded);
+    OtelEvent2SentryEventConverter converter = new OtelEvent2SentryEventConverter();
+    OtelEvent2SentryEventConverter uncached = new OtelEvent2SentryEventConverter(0L);
+    for (int i = 0; i < throwables.size(); i++) {
+      Iterator<SentryException> expectedIter = extractExceptions(
+          uncached.convert(translateThrowableToOtelEvent(throwables.get(i))));
+      Iterator<SentryException> actualIter =
+          extractExceptions(converter.convert(encoded.get(i), table));
+      while (expectedIter.hasNext()) {
+        SentryStackTraceElement[] expected = expectedIter.next().getStackTraceInterface()
+            .getStackTrace();
+        SentryStackTraceElement[] actual = actualIter.next().getStackTraceInterface()
+            .getStackTrace();
+        assertEquals(expected.length, actual.length);
+        for (int frame = 0; frame < expected.length; frame++) {
+          assertEquals(expected[frame].getFunction(), actual[frame].getFunction());
+          assertEquals(expected[frame].getLineno(), actual[frame].getLineno());
+        }
+      }
+      assertFalse(actualIter.hasNext());
+    }
+  }
+
+  @Test
+  public void shouldConvertTypeWithoutPackage() {
+    ErrorData errorData = ErrorData.newBuilder()
+        .addExceptions(ExceptionData.newBuilder().setType("DefaultPackageException"))
+        .build();
+    DecodedEvent source = DecodedEvent.ofErrorData(
+        Event.newBuilder().setDescription(EVENT_ERROR).build(), errorData);
+    SentryException exception =
+        extractExceptions(new OtelEvent2SentryEventConverter().convert(source)).next();
+    assertEquals(SentryException.DEFAULT_PACKAGE_NAME, exception.getExceptionPackageName());
+    assertEquals("DefaultPackageException", exception.getExceptionClassName());
+  }
+
+  private static Iterator<SentryException> extractExceptions(io.sentry.event.Event event) {
+    ExceptionInterface exceptions = (ExceptionInterface)
+        event.getSentryInterfaces().get("sentry.interfaces.Exception");
+    return exceptions.getExceptions().iterator();
+  }
+
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.opentelemetry.proto.events.v1.ErrorData;
+import io.opentelemetry.proto.events.v1.Event;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/** Unit tests for {@link SeenIssuesRegistry}. */
+public class SeenIssuesRegistryTest extends AbstractConverterEquivalencyTesting {
+
+  @Test
+  public void shouldSendDetailsForFirstOccurrenceAndAfterResendInterval() {
+    FakeTicker ticker = new FakeTicker();
+    SeenIssuesRegistry registry = new SeenIssuesRegistry(
+        100, Duration.ofHours(1), Duration.ofMinutes(5), ticker);
+    assertTrue(registry.shouldSendDetails("issue"));
+    assertFalse(registry.shouldSendDetails("issue"));
+    ticker.advance(4, TimeUnit.MINUTES);
+    assertFalse(registry.shouldSendDetails("issue"));
+    ticker.advance(1, TimeUnit.MINUTES);
+    assertTrue(registry.shouldSendDetails("issue"));
+    assertFalse(registry.shouldSendDetails("issue"));
+    assertEquals(2, registry.getDetailedCount());
+    assertEquals(3, registry.getCompactCount());
+  }
+
+  @Test
+  public void shouldForgetIssuesAfterExpiry() {
+    FakeTicker ticker = new FakeTicker();
+    SeenIssuesRegistry registry = new SeenIssuesRegistry(
+        100, Duration.ofMinutes(10), Duration.ofHours(1), ticker);
+    assertTrue(registry.shouldSendDetails("issue"));
+    ticker.advance(11, TimeUnit.MINUTES);
+    assertTrue(registry.shouldSendDetails("issue"));
+  }
+
+  @Test
+  public void shouldTranslateRepeatedIssueWithoutExceptions()
+      throws InvalidProtocolBufferException {
+    SeenIssuesRegistry registry =
+        new SeenIssuesRegistry(100, Duration.ofHours(1), Duration.ofHours(1));
+    ThrowableTranslator translator = ThrowableTranslator.newBuilder()
+        .setSeenIssuesRegistry(registry)
+        .build();
+    Exception throwable = generateMultiCauseException();
+    ErrorData first = extractErrorData(translator.translateThrowable(throwable,
+        Collections.singletonMap("personId", 58763)));
+    ErrorData repeat = extractErrorData(translator.translateThrowable(throwable,
+        Collections.singletonMap("personId", 58763)));
+    assertEquals(2, first.getExceptionsCount());
+    assertEquals(0, repeat.getExceptionsCount());
+    assertEquals(first.getHashId(), repeat.getHashId());
+    assertEquals(first.getIssueHashId(), repeat.getIssueHashId());
+    assertEquals(first.getArgumentsList(), repeat.getArgumentsList());
+  }
+
+  private static ErrorData extractErrorData(Event event) throws InvalidProtocolBufferException {
+    return ErrorData.parseFrom(event.getAttributesList().get(1).getAnyValue().getValue());
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import io.opentelemetry.proto.events.v1.ErrorData;
+import io.opentelemetry.proto.events.v1.StackTrace.StackFrame;
+import java.util.Collections;
+import org.junit.Test;
+
+/** Unit tests for {@link StackFrameInternPool}. */
+public class StackFrameInternPoolTest extends AbstractConverterEquivalencyTesting {
+
+  @Test
+  public void shouldShareFramesForEqualElements() {
+    StackFrameInternPool pool = new StackFrameInternPool(16);
+    StackTraceElement element = new StackTraceElement("com.example.Foo", "bar", "Foo.java", 42);
+    StackFrame frame = pool.toStackFrame(element);
+    assertEquals(AttributeUtils.convertStackTraceElement2StackFrame(element), frame);
+    assertSame(frame, pool.toStackFrame(
+        new StackTraceElement("com.example.Foo", "bar", "Foo.java", 42)));
+    assertEquals(1L, pool.getStackFrameStats().hitCount());
+    assertEquals(1L, pool.getStackFrameStats().missCount());
+
+    StackTraceElement reverse = pool.toStackTraceElement(frame);
+    assertEquals(element, reverse);
+    assertSame(reverse, pool.toStackTraceElement(frame.toBuilder().build()));
+    assertEquals(1L, pool.getStackTraceElementStats().hitCount());
+    assertEquals(2L, pool.size());
+    assertTrue(pool.getEstimatedFootprintBytes() > 0L);
+  }
+
+  @Test
+  public void shouldReleaseFootprintOnEviction() {
+    StackFrameInternPool pool = new StackFrameInternPool(1);
+    pool.toStackFrame(new StackTraceElement("com.example.Foo", "bar", "Foo.java", 1));
+    long single = pool.getEstimatedFootprintBytes();
+    for (int i = 2; i < 100; i++) {
+      pool.toStackFrame(new StackTraceElement("com.example.Foo", "bar", "Foo.java", i));
+    }
+    assertEquals(1L, pool.size());
+    assertEquals(single, pool.getEstimatedFootprintBytes());
+    assertTrue(pool.getStackFrameStats().evictionCount() > 0L);
+  }
+
+  @Test
+  public void shouldTranslateAndConvertLikeUnpooled() {
+    StackFrameInternPool pool = new StackFrameInternPool(1024);
+    ThrowableTranslator translator = ThrowableTranslator.newBuilder()
+        .setStackTraceCacheSize(0)
+        .setStackFrameInternPool(pool)
+        .build();
+    Exception exception = generateMultiCauseException();
+    ErrorData pooled = translator.translate(exception, Collections.emptyMap()).getErrorData();
+    ErrorData plain = new ThrowableTranslator()
+        .translate(exception, Collections.emptyMap()).getErrorData();
+    assertEquals(plain.getExceptions(0).getStack(), pooled.getExceptions(0).getStack());
+
+    DecodedEvent event = translator.translate(exception, Collections.emptyMap());
+    assertTrue(pool.getStackFrameStats().hitCount() > 0L);
+    assertArrayEquals(
+        new OtelEvent2AwsXrayCauseConverter().convert(event).getExceptions().get(0).getStack(),
+        new OtelEvent2AwsXrayCauseConverter(pool).convert(event).getExceptions().get(0).getStack());
+    assertTrue(pool.getStackTraceElementStats().missCount() > 0L);
+  }
+}
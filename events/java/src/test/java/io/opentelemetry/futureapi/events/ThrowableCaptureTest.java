@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import io.opentelemetry.proto.events.v1.ErrorData;
+import io.opentelemetry.proto.events.v1.StackTrace;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.Test;
+
+/** Unit tests for {@link ThrowableCapture}. */
+public class ThrowableCaptureTest extends AbstractConverterEquivalencyTesting {
+
+  @Test
+  public void shouldSnapshotTypeMessageStackAndCauses() {
+    Exception exception = generateMultiCauseException();
+    ThrowableCapture capture = ThrowableCapture.of(exception);
+    assertEquals(exception.getClass().getName(), capture.getType());
+    assertEquals(exception.getMessage(), capture.getMessage());
+    assertArrayEquals(exception.getStackTrace(), capture.getStackTrace());
+    assertNotSame(capture.getStackTrace(), capture.getStackTrace());
+    assertEquals(exception.getCause().getClass().getName(), capture.getCause().getType());
+    assertNull(capture.getCause().getCause());
+  }
+
+  @Test
+  public void shouldNotSeeLaterChangesToTheThrowable() {
+    IllegalStateException exception = new IllegalStateException("original");
+    StackTraceElement[] original = exception.getStackTrace();
+    ThrowableCapture capture = ThrowableCapture.of(exception);
+    exception.setStackTrace(new StackTraceElement[0]);
+    exception.initCause(new IllegalArgumentException("late"));
+    assertArrayEquals(original, capture.getStackTrace());
+    assertNull(capture.getCause());
+  }
+
+  @Test
+  public void shouldTranslateCaptureLikeThrowable() {
+    Exception exception = generateMultiCauseException();
+    Map<String, Object> parameters = generateParameters(3);
+    ThrowableTranslator translator = ThrowableTranslator.newBuilder()
+        .setIdGenerator(() -> () -> "id")
+        .build();
+    ThrowableCapture capture = ThrowableCapture.of(exception);
+    ErrorData expected = translator.translate(exception, parameters).getErrorData();
+    DecodedEvent actual = translator.translate(capture, parameters);
+    assertEquals(expected, actual.getErrorData());
+    assertEquals(capture.getTimeUnixnano(), actual.getTimeUnixnano());
+  }
+
+  @Test
+  public void shouldStopAtCauseCycle() {
+    Exception first = new Exception("first");
+    Exception second = new Exception("second", first);
+    first.initCause(second);
+    ThrowableCapture capture = ThrowableCapture.of(first);
+    assertEquals("second", capture.getCause().getMessage());
+    assertNull(capture.getCause().getCause());
+    assertEquals(2, new ThrowableTranslator()
+        .translate(capture, Collections.emptyMap()).getErrorData().getExceptionsCount());
+  }
+
+  @Test
+  public void shouldCaptureCallSiteUpToLimit() {
+    StackTraceElement[] expected = new Throwable().getStackTrace();
+    ThrowableCapture capture = ThrowableCapture.ofCallSite("CallSiteError", "limited", 2);
+    StackTraceElement[] frames = capture.getStackTrace();
+    assertEquals(2, frames.length);
+    assertEquals(expected[0].getClassName(), frames[0].getClassName());
+    assertEquals("shouldCaptureCallSiteUpToLimit", frames[0].getMethodName());
+    assertEquals(expected[1], frames[1]);
+    assertEquals(expected.length - 2, capture.getDroppedFramesCount());
+
+    StackTrace stack = new ThrowableTranslator().translate(capture, Collections.emptyMap())
+        .getErrorData().getExceptions(0).getStack();
+    assertEquals(2, stack.getFramesCount());
+    assertEquals(expected.length - 2, stack.getDroppedFramesCount());
+    assertEquals("CallSiteError", capture.getType());
+  }
+}
@@ -24,10 +24,13 @@ import com.google.protobuf.Any;
 import com.google.protobuf.InvalidProtocolBufferException;
 import io.opentelemetry.proto.events.v1.ErrorData;
 import io.opentelemetry.proto.events.v1.Event;
+import io.opentelemetry.proto.events.v1.StackTrace;
 import java.sql.SQLException;
 import java.sql.SQLIntegrityConstraintViolationException;
 import java.time.Instant;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
 import org.junit.Test;
@@ -70,6 +73,98 @@ public class ThrowableTranslatorTest {
     assertEquals(5, errorData.getArgumentsCount());
   }
 
+  @Test
+  public void shouldReuseCachedStackTraceForRepeatedStack()
+      throws InvalidProtocolBufferException {
+    ThrowableTranslator translator = ThrowableTranslator.newBuilder()
+        .setStackTraceCacheSize(16)
+        .build();
+    Exception throwable = generateMultiCauseException();
+    ErrorData first = extractErrorData(translator.translateThrowable(throwable, null));
+    ErrorData second = extractErrorData(translator.translateThrowable(throwable, null));
+    assertEquals(2, translator.getStackTraceCacheStats().missCount());
+    assertEquals(2, translator.getStackTraceCacheStats().hitCount());
+    assertEquals(first.getExceptions(0).getStack(), second.getExceptions(0).getStack());
+    assertEquals(first.getExceptions(1).getStack(), second.getExceptions(1).getStack());
+  }
+
+  @Test
+  public void shouldProduceSameStackTraceWithAndWithoutCache()
+      throws InvalidProtocolBufferException {
+    ThrowableTranslator cached = ThrowableTranslator.newBuilder().build();
+    ThrowableTranslator uncached = ThrowableTranslator.newBuilder()
+        .setStackTraceCacheSize(0)
+        .build();
+    Exception throwable = generateMultiCauseException();
+    ErrorData expected = extractErrorData(uncached.translateThrowable(throwable, null));
+    ErrorData actual = extractErrorData(cached.translateThrowable(throwable, null));
+    assertEquals(expected.getHashId(), actual.getHashId());
+    assertEquals(expected.getIssueHashId(), actual.getIssueHashId());
+    assertEquals(expected.getExceptions(0).getStack(), actual.getExceptions(0).getStack());
+    assertEquals(0, uncached.getStackTraceCacheStats().requestCount());
+  }
+
+  @Test
+  public void shouldEvictStackTracesBeyondCacheSize() {
+    ThrowableTranslator translator = ThrowableTranslator.newBuilder()
+        .setStackTraceCacheSize(1)
+        .build();
+    translator.translateThrowable(generateMultiCauseException(), null);
+    assertTrue(translator.getStackTraceCacheStats().evictionCount() > 0);
+  }
+
+  @Test
+  public void shouldLinkCausesUsingGeneratedIds() throws InvalidProtocolBufferException {
+    ThrowableTranslator translator = ThrowableTranslator.newBuilder()
+        .setIdGenerator(IdGenerator.uuid())
+        .build();
+    ErrorData errorData =
+        extractErrorData(translator.translateThrowable(generateMultiCauseException(), null));
+    assertEquals(errorData.getExceptions(1).getId(), errorData.getExceptions(0).getCause());
+    assertEquals(36, errorData.getExceptions(1).getId().length());
+  }
+
+  @Test
+  public void shouldElideFramesCommonWithEnclosingStack() throws InvalidProtocolBufferException {
+    Exception throwable = generateMultiCauseException();
+    ThrowableTranslator translator = ThrowableTranslator.newBuilder()
+        .setMaxStackTraceLength(128)
+        .setElideCommonFrames(true)
+        .build();
+    ErrorData errorData = extractErrorData(translator.translateThrowable(throwable, null));
+    StackTrace enclosing = errorData.getExceptions(0).getStack();
+    StackTrace cause = errorData.getExceptions(1).getStack();
+    int causeLength = throwable.getCause().getStackTrace().length;
+    assertEquals(0, enclosing.getCommonFramesCount());
+    assertTrue(cause.getCommonFramesCount() > 0);
+    assertEquals(causeLength, cause.getFramesCount() + cause.getCommonFramesCount());
+    assertEquals(0, cause.getDroppedFramesCount());
+
+    ErrorData full =
+        extractErrorData(new ThrowableTranslator(128).translateThrowable(throwable, null));
+    List<StackTrace> rebuilt = StackTraceTable.resolveAll(null, errorData);
+    for (int i = 0; i < full.getExceptionsCount(); i++) {
+      assertEquals(full.getExceptions(i).getStack().getFramesList(),
+          rebuilt.get(i).getFramesList());
+    }
+  }
+
+  @Test
+  public void shouldNotElideWhenFramesWereDropped() throws InvalidProtocolBufferException {
+    ThrowableTranslator translator = ThrowableTranslator.newBuilder()
+        .setMaxStackTraceLength(2)
+        .setElideCommonFrames(true)
+        .build();
+    ErrorData errorData =
+        extractErrorData(translator.translateThrowable(generateMultiCauseException(), null));
+    assertEquals(0, errorData.getExceptions(1).getStack().getCommonFramesCount());
+    assertTrue(errorData.getExceptions(1).getStack().getDroppedFramesCount() > 0);
+  }
+
+  private ErrorData extractErrorData(Event event) throws InvalidProtocolBufferException {
+    return ErrorData.parseFrom(event.getAttributesList().get(1).getAnyValue().getValue());
+  }
+
   private void validateEventTime(Event event) {
     Instant timestamp = Instant.ofEpochSecond(event.getTimeUnixnano() / 1000000000L,
         event.getTimeUnixnano() % 1000000000L);
@@ -99,4 +194,20 @@ public class ThrowableTranslatorTest {
     throw new SQLIntegrityConstraintViolationException(
         "Column widget_id cannot be null", "23000", 1048);
   }
-}
\ No newline at end of file
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectNegativeMaxStackTraceLength() {
+    ThrowableTranslator.newBuilder().setMaxStackTraceLength(-1);
+  }
+
+  @Test
+  public void shouldRecordNoFramesForZeroMaxStackTraceLength()
+      throws InvalidProtocolBufferException {
+    Exception throwable = generateMultiCauseException();
+    ErrorData errorData = extractErrorData(
+        new ThrowableTranslator(0).translateThrowable(throwable, Collections.emptyMap()));
+    assertEquals(0, errorData.getExceptions(0).getStack().getFramesCount());
+    assertEquals(throwable.getStackTrace().length,
+        errorData.getExceptions(0).getStack().getDroppedFramesCount());
+  }
+}
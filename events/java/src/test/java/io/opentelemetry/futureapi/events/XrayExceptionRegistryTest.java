@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019, OpenTelemetry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opentelemetry.futureapi.events;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/** Unit tests for {@link XrayExceptionRegistry}. */
+public class XrayExceptionRegistryTest {
+
+  @Test
+  public void shouldReferToExceptionDescribedEarlierInTheSameTrace() {
+    XrayExceptionRegistry registry =
+        new XrayExceptionRegistry(100, Duration.ofMinutes(5), 10);
+    assertNull(registry.describeOrReference("trace-1", "key", "id-1"));
+    assertEquals("id-1", registry.describeOrReference("trace-1", "key", "id-2"));
+    assertNull(registry.describeOrReference("trace-2", "key", "id-3"));
+    assertEquals(2, registry.getDescribedCount());
+    assertEquals(1, registry.getReferencedCount());
+  }
+
+  @Test
+  public void shouldForgetTraceWhenEndedOrExpired() {
+    FakeTicker ticker = new FakeTicker();
+    XrayExceptionRegistry registry =
+        new XrayExceptionRegistry(100, Duration.ofMinutes(5), 10, ticker);
+    registry.describeOrReference("trace-1", "key", "id-1");
+    registry.describeOrReference("trace-2", "key", "id-2");
+    registry.endTrace("trace-1");
+    assertNull(registry.describeOrReference("trace-1", "key", "id-3"));
+    ticker.advance(6, TimeUnit.MINUTES);
+    assertNull(registry.describeOrReference("trace-2", "key", "id-4"));
+  }
+
+  @Test
+  public void shouldStopRecordingWhenTraceIsFull() {
+    XrayExceptionRegistry registry =
+        new XrayExceptionRegistry(100, Duration.ofMinutes(5), 1);
+    registry.describeOrReference("trace-1", "first", "id-1");
+    assertNull(registry.describeOrReference("trace-1", "second", "id-2"));
+    assertNull(registry.describeOrReference("trace-1", "second", "id-3"));
+    assertEquals("id-1", registry.describeOrReference("trace-1", "first", "id-4"));
+  }
+}